@@ -0,0 +1,698 @@
+/************************************************************************************
+ * @file BpTreeMap.java
+ *
+ * @author  John Miller
+ */
+
+import java.io.*;
+import java.lang.reflect.Array;
+import java.util.*;
+
+import static java.lang.System.out;
+
+/************************************************************************************
+ * This class provides B+Tree maps.  B+Trees are used as multi-level index structures
+ * that provide efficient access for both point queries and range queries.  All keys
+ * and values are stored in the leaves, which are linked left to right so that range
+ * scans walk the leaf level without revisiting the internal nodes.  Each node holds
+ * its keys in a single array, so a search touches one small array per level rather
+ * than one object per key.
+ */
+public class BpTreeMap <K extends Comparable <K>, V>
+       extends AbstractMap <K, V>
+       implements Serializable, Cloneable, SortedMap <K, V>
+{
+    /** The default fan-out (maximum number of children per internal node).
+     */
+    private static final int ORDER = 64;
+
+    /** The fraction of each node filled by bulk loading (leaving room for later puts).
+     */
+    private static final double FILL = 0.75;
+
+    /** The class for type K.
+     */
+    private final Class <K> classK;
+
+    /** The class for type V.
+     */
+    private final Class <V> classV;
+
+    /** The fan-out of this tree (nodes hold at most order - 1 keys).
+     */
+    private final int order;
+
+    /********************************************************************************
+     * This inner class defines nodes that are stored in the B+tree map.  Arrays have
+     * one extra slot so that a node may overflow by one key before it is split.
+     */
+    private class Node
+            implements Serializable
+    {
+        boolean        isLeaf;
+        int            nKeys;
+        K []           key;
+        V []           value;                                                // leaves only
+        Node []        child;                                                // internal nodes only
+        transient Node next;                                                 // next leaf (relinked on load)
+
+        @SuppressWarnings("unchecked")
+        Node (boolean _isLeaf)
+        {
+            isLeaf = _isLeaf;
+            nKeys  = 0;
+            key    = (K []) Array.newInstance (classK, order);
+            if (isLeaf) value = (V []) Array.newInstance (classV, order);
+            else        child = (Node []) Array.newInstance (Node.class, order + 1);
+        } // constructor
+
+        /****************************************************************************
+         * Return the position of the first key >= k (nKeys if there is none).
+         */
+        int lowerBound (K k)
+        {
+            int lo = 0, hi = nKeys;
+            while (lo < hi) {
+                var mid = (lo + hi) >>> 1;
+                if (key[mid].compareTo (k) < 0) lo = mid + 1; else hi = mid;
+            } // while
+            return lo;
+        } // lowerBound
+
+        /****************************************************************************
+         * Return the position of the first key > k, i.e., the child to descend into.
+         */
+        int upperBound (K k)
+        {
+            int lo = 0, hi = nKeys;
+            while (lo < hi) {
+                var mid = (lo + hi) >>> 1;
+                if (key[mid].compareTo (k) <= 0) lo = mid + 1; else hi = mid;
+            } // while
+            return lo;
+        } // upperBound
+
+        void print ()
+        {
+            out.print ("[ . " );
+            for (var j = 0; j < nKeys; j++) out.print (key[j] + " . ");
+            out.print ("]" );
+        } // print
+
+    } // Node inner class
+
+    /** The root of the B+Tree
+     */
+    private Node root;
+
+    /** The first (leftmost) leaf in the B+Tree
+     */
+    private Node firstLeaf;
+
+    /** The counter for the total number of keys in the B+Tree Map
+     */
+    private int keyCount = 0;
+
+    /** Counter for the number nodes accessed (for performance testing).
+     */
+    private long count = 0;
+
+    /** The separator key and old value handed back up while inserting.
+     */
+    private transient K upKey;
+    private transient V oldV;
+
+    /********************************************************************************
+     * Construct an empty B+Tree map with the default fan-out.
+     * @param _classK  the class for keys (K)
+     * @param _classV  the class for values (V)
+     */
+    public BpTreeMap (Class <K> _classK, Class <V> _classV)
+    {
+        this (_classK, _classV, ORDER);
+    } // constructor
+
+    /********************************************************************************
+     * Construct an empty B+Tree map with the given fan-out.
+     * @param _classK  the class for keys (K)
+     * @param _classV  the class for values (V)
+     * @param _order   the maximum number of children per internal node (at least 3)
+     */
+    public BpTreeMap (Class <K> _classK, Class <V> _classV, int _order)
+    {
+        if (_order < 3) throw new IllegalArgumentException ("BpTreeMap: order must be at least 3");
+        classK    = _classK;
+        classV    = _classV;
+        order     = _order;
+        root      = new Node (true);
+        firstLeaf = root;
+    } // constructor
+
+    /********************************************************************************
+     * Return null to use the natural order based on the key type.  This requires the
+     * key type to implement Comparable.
+     */
+    public Comparator <? super K> comparator ()
+    {
+        return null;
+    } // comparator
+
+    /********************************************************************************
+     * Return a set containing all the entries as pairs of keys and values, in key
+     * order.  The set is a view that walks the linked leaves.
+     * @return  the set view of the map
+     */
+    public Set <Map.Entry <K, V>> entrySet ()
+    {
+        return new RangeSet (null, true, null, true);
+    } // entrySet
+
+    /********************************************************************************
+     * Given the key, look up the value in the B+Tree map.
+     * @param key  the key used for look up
+     * @return  the value associated with the key or null if not found
+     */
+    @SuppressWarnings("unchecked")
+    public V get (Object key)
+    {
+        var k = (K) key;
+        var n = root;
+        count++;
+        while (! n.isLeaf) { n = n.child[n.upperBound (k)]; count++; }
+        var i = n.lowerBound (k);
+        return (i < n.nKeys && n.key[i].compareTo (k) == 0) ? n.value[i] : null;
+    } // get
+
+    /********************************************************************************
+     * Determine whether the B+Tree map contains the given key.
+     * @param key  the key to look for
+     * @return  whether the key is present
+     */
+    public boolean containsKey (Object key)
+    {
+        return get (key) != null;
+    } // containsKey
+
+    /********************************************************************************
+     * Put the key-value pair in the B+Tree map.
+     * @param key    the key to insert
+     * @param value  the value to insert
+     * @return  the old/previous value, null if none
+     */
+    public V put (K key, V value)
+    {
+        if (key == null) throw new NullPointerException ("BpTreeMap: null key");
+        oldV = null;
+        var sib = insert (root, key, value);
+        if (sib != null) {                                                   // root was split
+            var nr = new Node (false);
+            nr.key[0]   = upKey;
+            nr.child[0] = root;
+            nr.child[1] = sib;
+            nr.nKeys    = 1;
+            root = nr;
+        } // if
+        return oldV;
+    } // put
+
+    /********************************************************************************
+     * Remove all of the entries from this B+Tree map.
+     */
+    public void clear ()
+    {
+        root      = new Node (true);
+        firstLeaf = root;
+        keyCount  = 0;
+    } // clear
+
+    /********************************************************************************
+     * Return the size (number of keys) in the B+Tree.
+     * @return  the size of the B+Tree
+     */
+    public int size ()
+    {
+        return keyCount;
+    } // size
+
+    /********************************************************************************
+     * Return the number of nodes accessed by get since the count was last reset.
+     * @return  the number of nodes accessed
+     */
+    public long getCount ()
+    {
+        return count;
+    } // getCount
+
+    /********************************************************************************
+     * Reset the count of nodes accessed.
+     */
+    public void resetCount ()
+    {
+        count = 0;
+    } // resetCount
+
+    /********************************************************************************
+     * Return the first (smallest) key in the B+Tree map.
+     * @return  the first key in the B+Tree map.
+     */
+    public K firstKey ()
+    {
+        if (keyCount == 0) throw new NoSuchElementException ();
+        return firstLeaf.key[0];
+    } // firstKey
+
+    /********************************************************************************
+     * Return the last (largest) key in the B+Tree map.
+     * @return  the last key in the B+Tree map.
+     */
+    public K lastKey ()
+    {
+        if (keyCount == 0) throw new NoSuchElementException ();
+        var n = root;
+        while (! n.isLeaf) n = n.child[n.nKeys];
+        return n.key[n.nKeys - 1];
+    } // lastKey
+
+    /********************************************************************************
+     * Return the portion of the B+Tree map where key < toKey.
+     * @return  the submap with keys in the range [firstKey, toKey)
+     */
+    public SortedMap <K,V> headMap (K toKey)
+    {
+        return new SubMap (null, true, toKey, false);
+    } // headMap
+
+    /********************************************************************************
+     * Return the portion of the B+Tree map where fromKey <= key.
+     * @return  the submap with keys in the range [fromKey, lastKey]
+     */
+    public SortedMap <K,V> tailMap (K fromKey)
+    {
+        return new SubMap (fromKey, true, null, true);
+    } // tailMap
+
+    /********************************************************************************
+     * Return the portion of the B+Tree map whose keys are between fromKey and toKey,
+     * i.e., fromKey <= key < toKey.
+     * @return  the submap with keys in the range [fromKey, toKey)
+     */
+    public SortedMap <K,V> subMap (K fromKey, K toKey)
+    {
+        return new SubMap (fromKey, true, toKey, false);
+    } // subMap
+
+    /********************************************************************************
+     * Return the portion of the B+Tree map whose keys are between fromKey and toKey,
+     * with each bound inclusive or exclusive as given.  A null bound is unbounded.
+     * The submap is a view that scans the linked leaves starting at fromKey.
+     * @param fromKey    the low bound
+     * @param fromInc    whether the low bound is included
+     * @param toKey      the high bound
+     * @param toInc      whether the high bound is included
+     * @return  the submap with keys in the given range
+     */
+    public SortedMap <K,V> subMap (K fromKey, boolean fromInc, K toKey, boolean toInc)
+    {
+        return new SubMap (fromKey, fromInc, toKey, toInc);
+    } // subMap
+
+    /********************************************************************************
+     * Bulk load this (empty) B+Tree map from entries given in strictly ascending key
+     * order.  The leaves are filled left to right and the internal levels are built
+     * bottom up, which is much faster than repeated puts and leaves each node FILL
+     * full so later puts rarely split.
+     * @param entries  the entries in ascending key order
+     */
+    public void bulkLoad (Iterator <? extends Map.Entry <K, V>> entries)
+    {
+        if (keyCount > 0) throw new IllegalStateException ("BpTreeMap.bulkLoad: map is not empty");
+
+        var all = new ArrayList <Map.Entry <K, V>> ();
+        while (entries.hasNext ()) {
+            var e = entries.next ();
+            if (! all.isEmpty () && all.get (all.size () - 1).getKey ().compareTo (e.getKey ()) >= 0) {
+                throw new IllegalArgumentException ("BpTreeMap.bulkLoad: keys not strictly ascending at " + e.getKey ());
+            } // if
+            all.add (e);
+        } // while
+        if (all.isEmpty ()) return;
+
+        var per    = Math.max (2, (int) ((order - 1) * FILL));               // keys per leaf
+        var sizes  = spread (all.size (), per);
+        var level  = new ArrayList <Node> ();
+        var minKey = new ArrayList <K> ();                                   // smallest key under each node
+        var pos    = 0;
+        Node prev  = null;
+        for (var sz : sizes) {
+            var n = new Node (true);
+            for (var j = 0; j < sz; j++, pos++) {
+                n.key[j]   = all.get (pos).getKey ();
+                n.value[j] = all.get (pos).getValue ();
+            } // for
+            n.nKeys = sz;
+            if (prev != null) prev.next = n;
+            prev = n;
+            level.add (n);
+            minKey.add (n.key[0]);
+        } // for
+        firstLeaf = level.get (0);
+        keyCount  = all.size ();
+
+        var fan = Math.max (2, (int) (order * FILL));                        // children per internal node
+        while (level.size () > 1) {
+            var upper    = new ArrayList <Node> ();
+            var upperMin = new ArrayList <K> ();
+            pos = 0;
+            for (var sz : spread (level.size (), fan)) {
+                var n = new Node (false);
+                for (var j = 0; j < sz; j++, pos++) {
+                    n.child[j] = level.get (pos);
+                    if (j > 0) n.key[j - 1] = minKey.get (pos);
+                } // for
+                n.nKeys = sz - 1;
+                upper.add (n);
+                upperMin.add (minKey.get (pos - sz));
+            } // for
+            level  = upper;
+            minKey = upperMin;
+        } // while
+        root = level.get (0);
+    } // bulkLoad
+
+    /********************************************************************************
+     * Print the B+Tree level by level.
+     */
+    public void print ()
+    {
+        out.println ("BpTreeMap");
+        out.println ("-------------------------------------------");
+
+        var level = List.of (root);
+        for (var d = 0; ! level.isEmpty (); d++) {
+            out.print ("Level [ " + d + " ] = ");
+            var below = new ArrayList <Node> ();
+            for (var n : level) {
+                n.print ();
+                if (! n.isLeaf) for (var j = 0; j <= n.nKeys; j++) below.add (n.child[j]);
+            } // for
+            out.println ();
+            level = below;
+        } // for
+
+        out.println ("-------------------------------------------");
+    } // print
+
+    /********************************************************************************
+     * Recursive helper for put: insert the key-value pair into the subtree rooted at n.
+     * If n overflows it is split, the separator is left in upKey and the new right
+     * sibling is returned.
+     * @param n      the root of the subtree
+     * @param key    the key to insert
+     * @param value  the value to insert
+     * @return  the new right sibling of n if n was split, otherwise null
+     */
+    private Node insert (Node n, K key, V value)
+    {
+        if (n.isLeaf) {
+            var i = n.lowerBound (key);
+            if (i < n.nKeys && n.key[i].compareTo (key) == 0) {              // replace existing value
+                oldV = n.value[i];
+                n.value[i] = value;
+                return null;
+            } // if
+            System.arraycopy (n.key, i, n.key, i + 1, n.nKeys - i);
+            System.arraycopy (n.value, i, n.value, i + 1, n.nKeys - i);
+            n.key[i]   = key;
+            n.value[i] = value;
+            n.nKeys++;
+            keyCount++;
+            return (n.nKeys == order) ? splitLeaf (n) : null;
+        } // if
+
+        var c   = n.upperBound (key);
+        var sib = insert (n.child[c], key, value);
+        if (sib == null) return null;
+
+        System.arraycopy (n.key, c, n.key, c + 1, n.nKeys - c);              // add separator and sibling
+        System.arraycopy (n.child, c + 1, n.child, c + 2, n.nKeys - c);
+        n.key[c]       = upKey;
+        n.child[c + 1] = sib;
+        n.nKeys++;
+        return (n.nKeys == order) ? splitInternal (n) : null;
+    } // insert
+
+    /********************************************************************************
+     * Split the overflowing leaf n, moving its upper half into a new right sibling that
+     * is linked into the leaf chain.  The separator is the sibling's first key.
+     * @param n  the leaf to split
+     * @return  the new right sibling
+     */
+    private Node splitLeaf (Node n)
+    {
+        var m   = n.nKeys / 2;
+        var sib = new Node (true);
+        sib.nKeys = n.nKeys - m;
+        System.arraycopy (n.key, m, sib.key, 0, sib.nKeys);
+        System.arraycopy (n.value, m, sib.value, 0, sib.nKeys);
+        Arrays.fill (n.key, m, n.nKeys, null);
+        Arrays.fill (n.value, m, n.nKeys, null);
+        n.nKeys  = m;
+        sib.next = n.next;
+        n.next   = sib;
+        upKey    = sib.key[0];
+        return sib;
+    } // splitLeaf
+
+    /********************************************************************************
+     * Split the overflowing internal node n, moving the keys and children above the
+     * middle key into a new right sibling.  The middle key moves up as the separator.
+     * @param n  the internal node to split
+     * @return  the new right sibling
+     */
+    private Node splitInternal (Node n)
+    {
+        var m   = n.nKeys / 2;
+        var sib = new Node (false);
+        upKey     = n.key[m];
+        sib.nKeys = n.nKeys - m - 1;
+        System.arraycopy (n.key, m + 1, sib.key, 0, sib.nKeys);
+        System.arraycopy (n.child, m + 1, sib.child, 0, sib.nKeys + 1);
+        Arrays.fill (n.key, m, n.nKeys, null);
+        Arrays.fill (n.child, m + 1, n.nKeys + 1, null);
+        n.nKeys = m;
+        return sib;
+    } // splitInternal
+
+    /********************************************************************************
+     * Split n items into the fewest groups of at most max items, with group sizes
+     * differing by at most one (so the last node is never left nearly empty).
+     * @param n    the number of items
+     * @param max  the maximum group size
+     * @return  the group sizes
+     */
+    private static int [] spread (int n, int max)
+    {
+        var groups = (n + max - 1) / max;
+        var sizes  = new int [groups];
+        for (var g = 0; g < groups; g++) sizes [g] = n / groups + (g < n % groups ? 1 : 0);
+        return sizes;
+    } // spread
+
+    /********************************************************************************
+     * Find the leaf that would contain key k (the first leaf when k is null).
+     * @param k  the key to locate
+     * @return  the leaf where k belongs
+     */
+    private Node findLeaf (K k)
+    {
+        if (k == null) return firstLeaf;
+        var n = root;
+        while (! n.isLeaf) n = n.child[n.upperBound (k)];
+        return n;
+    } // findLeaf
+
+    /********************************************************************************
+     * Relink the leaf chain (which is not serialized, to keep serialization from
+     * recursing along every leaf) after the map is deserialized.
+     */
+    private void readObject (ObjectInputStream ois)
+            throws IOException, ClassNotFoundException
+    {
+        ois.defaultReadObject ();
+        var level = List.of (root);
+        while (! level.get (0).isLeaf) {
+            var below = new ArrayList <Node> ();
+            for (var n : level) for (var j = 0; j <= n.nKeys; j++) below.add (n.child[j]);
+            level = below;
+        } // while
+        for (var j = 0; j < level.size () - 1; j++) level.get (j).next = level.get (j + 1);
+    } // readObject
+
+    /********************************************************************************
+     * This inner class is the entry set view of the keys between lo and hi.  Its
+     * iterator descends once to the leaf holding lo and then follows the leaf chain.
+     */
+    private class RangeSet
+            extends AbstractSet <Map.Entry <K, V>>
+    {
+        final K lo, hi;
+        final boolean loInc, hiInc;
+
+        RangeSet (K _lo, boolean _loInc, K _hi, boolean _hiInc)
+        {
+            lo = _lo; loInc = _loInc; hi = _hi; hiInc = _hiInc;
+        } // constructor
+
+        public int size ()
+        {
+            if (lo == null && hi == null) return keyCount;
+            var n = 0;
+            for (var it = iterator (); it.hasNext (); it.next ()) n++;
+            return n;
+        } // size
+
+        public Iterator <Map.Entry <K, V>> iterator ()
+        {
+            return new Iterator <> () {
+                Node leaf = findLeaf (lo);
+                int  pos  = (lo == null) ? 0 : leaf.lowerBound (lo);
+                {
+                    if (lo != null && ! loInc) skip ();
+                } // initializer
+
+                private void skip ()                                         // move past an excluded lo
+                {
+                    advance ();
+                    if (leaf != null && leaf.key[pos].compareTo (lo) == 0) pos++;
+                } // skip
+
+                private void advance ()                                      // step over exhausted leaves
+                {
+                    while (leaf != null && pos >= leaf.nKeys) { leaf = leaf.next; pos = 0; }
+                } // advance
+
+                public boolean hasNext ()
+                {
+                    advance ();
+                    if (leaf == null) return false;
+                    if (hi == null) return true;
+                    var c = leaf.key[pos].compareTo (hi);
+                    return c < 0 || (c == 0 && hiInc);
+                } // hasNext
+
+                public Map.Entry <K, V> next ()
+                {
+                    if (! hasNext ()) throw new NoSuchElementException ();
+                    var e = new AbstractMap.SimpleImmutableEntry <> (leaf.key[pos], leaf.value[pos]);
+                    pos++;
+                    return e;
+                } // next
+            }; // Iterator
+        } // iterator
+
+    } // RangeSet inner class
+
+    /********************************************************************************
+     * This inner class is the sorted map view of the keys between lo and hi returned
+     * by headMap, tailMap and subMap.  A null bound is unbounded.
+     */
+    private class SubMap
+            extends AbstractMap <K, V>
+            implements SortedMap <K, V>
+    {
+        final K lo, hi;
+        final boolean loInc, hiInc;
+
+        SubMap (K _lo, boolean _loInc, K _hi, boolean _hiInc)
+        {
+            lo = _lo; loInc = _loInc; hi = _hi; hiInc = _hiInc;
+        } // constructor
+
+        boolean inRange (K k)
+        {
+            if (lo != null) { var c = k.compareTo (lo); if (c < 0 || (c == 0 && ! loInc)) return false; }
+            if (hi != null) { var c = k.compareTo (hi); if (c > 0 || (c == 0 && ! hiInc)) return false; }
+            return true;
+        } // inRange
+
+        public Set <Map.Entry <K, V>> entrySet () { return new RangeSet (lo, loInc, hi, hiInc); }
+
+        @SuppressWarnings("unchecked")
+        public V get (Object key) { return inRange ((K) key) ? BpTreeMap.this.get (key) : null; }
+
+        public boolean containsKey (Object key) { return get (key) != null; }
+
+        public V put (K key, V value)
+        {
+            if (! inRange (key)) throw new IllegalArgumentException ("BpTreeMap.SubMap: key out of range");
+            return BpTreeMap.this.put (key, value);
+        } // put
+
+        public Comparator <? super K> comparator () { return null; }
+
+        public K firstKey ()
+        {
+            var it = entrySet ().iterator ();
+            if (! it.hasNext ()) throw new NoSuchElementException ();
+            return it.next ().getKey ();
+        } // firstKey
+
+        public K lastKey ()
+        {
+            K last = null;
+            for (var e : entrySet ()) last = e.getKey ();
+            if (last == null) throw new NoSuchElementException ();
+            return last;
+        } // lastKey
+
+        public SortedMap <K, V> subMap (K fromKey, K toKey) { return narrow (fromKey, true, toKey, false); }
+
+        public SortedMap <K, V> headMap (K toKey) { return narrow (null, true, toKey, false); }
+
+        public SortedMap <K, V> tailMap (K fromKey) { return narrow (fromKey, true, null, true); }
+
+        SubMap narrow (K from, boolean fromInc, K to, boolean toInc)         // intersect with this range
+        {
+            K nlo = lo; var nloInc = loInc; K nhi = hi; var nhiInc = hiInc;
+            if (from != null && (nlo == null || from.compareTo (nlo) > 0)) { nlo = from; nloInc = fromInc; }
+            if (to != null && (nhi == null || to.compareTo (nhi) < 0))     { nhi = to; nhiInc = toInc; }
+            return new SubMap (nlo, nloInc, nhi, nhiInc);
+        } // narrow
+
+    } // SubMap inner class
+
+    /********************************************************************************
+     * The main method used for testing.
+     * @param  the command-line arguments (args [0] gives number of keys to insert)
+     */
+    public static void main (String [] args)
+    {
+        var totalKeys = 40;
+        var RANDOMLY  = false;
+
+        var bpt = new BpTreeMap <Integer, Integer> (Integer.class, Integer.class, 5);
+        if (args.length == 1) totalKeys = Integer.valueOf (args [0]);
+
+        if (RANDOMLY) {
+            var rng = new Random ();
+            for (var i = 1; i <= totalKeys; i += 2) bpt.put (rng.nextInt (2 * totalKeys), i * i);
+        } else {
+            for (var i = 1; i <= totalKeys; i += 2) bpt.put (i, i * i);
+        } // if
+
+        bpt.print ();
+        for (var i = 0; i <= totalKeys; i++) {
+            out.println ("key = " + i + " value = " + bpt.get (i));
+        } // for
+        out.println ("-------------------------------------------");
+        out.println ("Average number of nodes accessed = " + bpt.count / (double) totalKeys);
+        out.println ("subMap [10, 20) = " + bpt.subMap (10, 20));
+
+        var bulk = new BpTreeMap <Integer, Integer> (Integer.class, Integer.class, 5);
+        bulk.bulkLoad (new TreeMap <> (bpt).entrySet ().iterator ());
+        bulk.print ();
+        out.println ("bulk loaded map equals original: " + bulk.equals (bpt));
+    } // main
+
+} // BpTreeMap class
+
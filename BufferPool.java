@@ -0,0 +1,237 @@
+/*****************************************************************************************
+ * @file  BufferPool.java
+ *
+ * @author   John Miller
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/*****************************************************************************************
+ * The BufferPool class caches fixed-size pages (TableFile.PAGE bytes) of table files in a
+ * bounded number of frames.  A page is pinned while in use and may not be evicted until
+ * it is unpinned; a page unpinned as dirty is written back before its frame is reused.
+ * Victims are chosen by the clock algorithm: each frame has a reference bit that is set
+ * when its page is pinned and cleared as the clock hand passes over it.
+ */
+public class BufferPool
+{
+    /** The frames holding the cached pages
+     */
+    private final ByteBuffer [] frame;
+
+    /** The page held by each frame (file id in the high word, page number in the low
+     *  word), or -1 if the frame is empty
+     */
+    private final long [] page;
+
+    /** The number of pins on each frame
+     */
+    private final int [] pins;
+
+    /** Whether each frame has been modified since it was read
+     */
+    private final boolean [] dirty;
+
+    /** The reference bit of each frame (for clock eviction)
+     */
+    private final boolean [] ref;
+
+    /** Map from page to the frame holding it
+     */
+    private final Map <Long, Integer> pageTable = new HashMap <> ();
+
+    /** The open files (channels) indexed by file id
+     */
+    private final List <FileChannel> files = new ArrayList <> ();
+
+    /** The position of the clock hand
+     */
+    private int hand = 0;
+
+    /** Counters for pins answered from the pool, pins that read the page and evictions
+     */
+    private long hits = 0, misses = 0, evictions = 0;
+
+    /*************************************************************************************
+     * Construct a buffer pool with the given number of frames.
+     * @param nFrames  the number of page frames
+     */
+    public BufferPool (int nFrames)
+    {
+        frame = new ByteBuffer [nFrames];
+        page  = new long [nFrames];
+        pins  = new int [nFrames];
+        dirty = new boolean [nFrames];
+        ref   = new boolean [nFrames];
+        Arrays.fill (page, -1L);
+    } // constructor
+
+    /*************************************************************************************
+     * Open the given file for reading and writing through this pool.
+     * @param file  the file to open
+     * @return  the file's id for pin and unpin
+     */
+    public synchronized int open (File file)
+           throws IOException
+    {
+        files.add (FileChannel.open (file.toPath (), READ, WRITE));
+        return files.size () - 1;
+    } // open
+
+    /*************************************************************************************
+     * Pin the given page of the given file, reading it into a frame if it is not cached.
+     * Pages beyond the end of the file read as zeros.  The returned buffer stays valid
+     * until the page is unpinned.
+     * @param fileId  the id of the file
+     * @param p       the page number
+     * @return  the buffer holding the page
+     */
+    public synchronized ByteBuffer pin (int fileId, int p)
+           throws IOException
+    {
+        var id = ((long) fileId << 32) | p;
+        var f  = pageTable.get (id);
+        if (f != null) {
+            hits++;
+        } else {
+            misses++;
+            f = victim ();
+            var buf = frame [f];
+            buf.clear ();
+            var pos = (long) p * TableFile.PAGE;
+            while (buf.hasRemaining ()) {
+                if (files.get (fileId).read (buf, pos + buf.position ()) < 0) break;
+            } // while
+            while (buf.hasRemaining ()) buf.put ((byte) 0);
+            page [f] = id;
+            pageTable.put (id, f);
+        } // if
+        pins [f]++;
+        ref [f] = true;
+        return frame [f];
+    } // pin
+
+    /*************************************************************************************
+     * Unpin the given page, marking it dirty if it was modified.
+     * @param fileId    the id of the file
+     * @param p         the page number
+     * @param modified  whether the page was modified while pinned
+     */
+    public synchronized void unpin (int fileId, int p, boolean modified)
+    {
+        var f = pageTable.get (((long) fileId << 32) | p);
+        if (f == null || pins [f] == 0) {
+            Log.error ("unpin ERROR: page " + p + " of file " + fileId + " is not pinned");
+            return;
+        } // if
+        pins [f]--;
+        dirty [f] |= modified;
+    } // unpin
+
+    /*************************************************************************************
+     * Write the dirty pages of the given file back to it and force them to disk.
+     * @param fileId  the id of the file
+     */
+    public synchronized void flush (int fileId)
+           throws IOException
+    {
+        for (var f = 0; f < frame.length; f++) {
+            if (dirty [f] && (int) (page [f] >>> 32) == fileId) writeBack (f);
+        } // for
+        files.get (fileId).force (true);
+    } // flush
+
+    /*************************************************************************************
+     * Return the channel of the given file, e.g., to write its header.
+     * @param fileId  the id of the file
+     * @return  the file's channel
+     */
+    public synchronized FileChannel channel (int fileId)
+    {
+        return files.get (fileId);
+    } // channel
+
+    /*************************************************************************************
+     * Return the number of pins answered from the pool.
+     * @return  the number of hits
+     */
+    public long hits ()
+    {
+        return hits;
+    } // hits
+
+    /*************************************************************************************
+     * Return the number of pins that read their page from the file.
+     * @return  the number of misses
+     */
+    public long misses ()
+    {
+        return misses;
+    } // misses
+
+    /*************************************************************************************
+     * Return the number of pages evicted to make room for others.
+     * @return  the number of evictions
+     */
+    public long evictions ()
+    {
+        return evictions;
+    } // evictions
+
+    /*************************************************************************************
+     * Return a summary of the pool's counters.
+     * @return  the summary
+     */
+    public String toString ()
+    {
+        return "BufferPool (frames = " + frame.length + ", hits = " + hits + ", misses = " + misses +
+               ", evictions = " + evictions + ")";
+    } // toString
+
+    /*************************************************************************************
+     * Find a frame for a new page: an empty frame, or else the first unpinned frame the
+     * clock hand reaches with its reference bit clear.  A dirty victim is written back.
+     * @return  the frame to use
+     */
+    private int victim ()
+           throws IOException
+    {
+        for (var sweep = 0; sweep < 2 * frame.length; sweep++) {
+            var f = hand;
+            hand = (hand + 1) % frame.length;
+            if (page [f] < 0) {
+                if (frame [f] == null) frame [f] = ByteBuffer.allocate (TableFile.PAGE);
+                return f;
+            } // if
+            if (pins [f] > 0) continue;
+            if (ref [f]) { ref [f] = false; continue; }
+            if (dirty [f]) writeBack (f);
+            pageTable.remove (page [f]);
+            page [f] = -1L;
+            evictions++;
+            return f;
+        } // for
+        throw new IllegalStateException ("BufferPool: all " + frame.length + " frames are pinned");
+    } // victim
+
+    /*************************************************************************************
+     * Write the page in the given frame back to its file.
+     * @param f  the frame
+     */
+    private void writeBack (int f)
+           throws IOException
+    {
+        var buf = frame [f].duplicate ().clear ();
+        var pos = (page [f] & 0xffffffffL) * TableFile.PAGE;
+        while (buf.hasRemaining ()) files.get ((int) (page [f] >>> 32)).write (buf, pos + buf.position ());
+        dirty [f] = false;
+    } // writeBack
+
+} // BufferPool class
+
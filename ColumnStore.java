@@ -0,0 +1,581 @@
+/*****************************************************************************************
+ * @file  ColumnStore.java
+ *
+ * @author   John Miller
+ */
+
+import java.io.Serializable;
+import java.util.*;
+
+/*****************************************************************************************
+ * The ColumnStore class holds the tuples of a table column by column.  Each attribute is
+ * kept in a primitive array chosen from its domain (int [] for Integer, Short and Byte,
+ * long [] for Long, double [] for Double and Float, char [] for Character and dictionary
+ * codes for String), so values are neither boxed nor scattered over the heap.  As a List
+ * of tuples it can stand in for the row list of a Table (tuples are materialized on get),
+ * while filter, gather and project work a column at a time.  Values are converted to
+ * their attribute's domain on add.
+ */
+public class ColumnStore
+       extends AbstractList <Comparable []>
+       implements RandomAccess, Serializable
+{
+    /** The initial capacity (number of tuples) of each column
+     */
+    private static final int CAPACITY = 16;
+
+    /** The attribute domains
+     */
+    private final Class [] domain;
+
+    /** The columns, one per attribute
+     */
+    private final Column [] column;
+
+    /** The number of tuples stored
+     */
+    private int size = 0;
+
+    /*************************************************************************************
+     * Construct an empty column store for attributes with the given domains.
+     * @param _domain  the attribute domains
+     */
+    public ColumnStore (Class [] _domain)
+    {
+        domain = _domain;
+        column = new Column [domain.length];
+        for (var j = 0; j < domain.length; j++) column [j] = makeColumn (domain [j]);
+    } // constructor
+
+    /*************************************************************************************
+     * Construct a column store from the given columns holding n tuples.
+     * @param _domain  the attribute domains
+     * @param _column  the columns
+     * @param n        the number of tuples
+     */
+    private ColumnStore (Class [] _domain, Column [] _column, int n)
+    {
+        domain = _domain;
+        column = _column;
+        size   = n;
+    } // constructor
+
+    /*************************************************************************************
+     * Return the number of tuples.
+     * @return  the number of tuples
+     */
+    public int size ()
+    {
+        return size;
+    } // size
+
+    /*************************************************************************************
+     * Materialize the i-th tuple.
+     * @param i  the tuple position
+     * @return  the tuple
+     */
+    public Comparable [] get (int i)
+    {
+        Objects.checkIndex (i, size);
+        var tup = new Comparable [column.length];
+        for (var j = 0; j < column.length; j++) tup [j] = column [j].get (i);
+        return tup;
+    } // get
+
+    /*************************************************************************************
+     * Return the value of the j-th attribute of the i-th tuple.
+     * @param i  the tuple position
+     * @param j  the attribute (column) position
+     * @return  the value
+     */
+    public Comparable get (int i, int j)
+    {
+        Objects.checkIndex (i, size);
+        return column [j].get (i);
+    } // get
+
+    /*************************************************************************************
+     * Append a tuple, converting each value to its attribute's domain.
+     * @param tup  the tuple to append
+     * @return  true
+     */
+    public boolean add (Comparable [] tup)
+    {
+        for (var j = 0; j < column.length; j++) column [j].add (size, tup [j]);
+        size++;
+        modCount++;
+        return true;
+    } // add
+
+    /*************************************************************************************
+     * Return the positions of the tuples whose j-th attribute lies between lo and hi
+     * (each bound inclusive or exclusive as given, null for unbounded), refining the
+     * given selection.  Null values never qualify.
+     * @param sel    the positions to consider in increasing order (null for all tuples)
+     * @param j      the attribute (column) position
+     * @param lo     the low bound
+     * @param loInc  whether the low bound is included
+     * @param hi     the high bound
+     * @param hiInc  whether the high bound is included
+     * @return  the positions of the qualifying tuples in increasing order
+     */
+    public int [] filter (int [] sel, int j, Comparable lo, boolean loInc, Comparable hi, boolean hiInc)
+    {
+        var n   = (sel == null) ? size : sel.length;
+        var out = new int [n];
+        var m   = column [j].filter (sel, n, lo, loInc, hi, hiInc, out);
+        return Arrays.copyOf (out, m);
+    } // filter
+
+    /*************************************************************************************
+     * Return the positions of the tuples whose j-th attribute is null, refining the given
+     * selection.
+     * @param sel  the positions to consider in increasing order (null for all tuples)
+     * @param j    the attribute (column) position
+     * @return  the positions of the qualifying tuples in increasing order
+     */
+    public int [] filterNull (int [] sel, int j)
+    {
+        var nulls = column [j].nulls;
+        if (sel == null) return nulls.get (0, size).stream ().toArray ();
+        var out = new int [sel.length];
+        var m   = 0;
+        for (var i : sel) if (nulls.get (i)) out [m++] = i;
+        return Arrays.copyOf (out, m);
+    } // filterNull
+
+    /*************************************************************************************
+     * Return the dictionary of the j-th attribute if it is stored as codes.
+     * @param j  the attribute (column) position
+     * @return  the column's dictionary, or null if it is not dictionary encoded
+     */
+    public Dictionary dictionary (int j)
+    {
+        return (column [j] instanceof CodeColumn cc) ? cc.dict : null;
+    } // dictionary
+
+    /*************************************************************************************
+     * Return the codes of the j-th attribute if it is dictionary encoded (-1 for null).
+     * The array is the column itself (not a copy) and may be longer than size ().
+     * @param j  the attribute (column) position
+     * @return  the column's codes, or null if it is not dictionary encoded
+     */
+    public int [] codes (int j)
+    {
+        return (column [j] instanceof CodeColumn cc) ? cc.data : null;
+    } // codes
+
+    /*************************************************************************************
+     * Return a new column store holding the tuples at the given positions.
+     * @param pos  the tuple positions
+     * @return  the selected tuples
+     */
+    public ColumnStore gather (int [] pos)
+    {
+        var cols = new Column [column.length];
+        for (var j = 0; j < column.length; j++) cols [j] = column [j].gather (pos);
+        return new ColumnStore (domain, cols, pos.length);
+    } // gather
+
+    /*************************************************************************************
+     * Return a new column store holding the given columns of every tuple.  The columns
+     * are copied array by array.
+     * @param cols  the attribute (column) positions to keep
+     * @return  the projected tuples
+     */
+    public ColumnStore project (int [] cols)
+    {
+        var dom = new Class [cols.length];
+        var col = new Column [cols.length];
+        for (var j = 0; j < cols.length; j++) {
+            dom [j] = domain [cols [j]];
+            col [j] = column [cols [j]].copy (size);
+        } // for
+        return new ColumnStore (dom, col, size);
+    } // project
+
+    /*************************************************************************************
+     * Make an empty column for the given domain.
+     * @param dom  the attribute domain
+     * @return  the column
+     */
+    private static Column makeColumn (Class dom)
+    {
+        if (dom == Integer.class || dom == Short.class || dom == Byte.class) return new IntColumn (dom);
+        if (dom == Long.class)                                               return new LongColumn ();
+        if (dom == Double.class || dom == Float.class)                       return new DoubleColumn (dom);
+        if (dom == Character.class)                                          return new CharColumn ();
+        if (dom == String.class)                                             return new CodeColumn (new Dictionary ());
+        return new ObjectColumn ();
+    } // makeColumn
+
+    /*************************************************************************************
+     * Return a capacity at least n, growing geometrically from the current capacity.
+     * @param cap  the current capacity
+     * @param n    the required capacity
+     * @return  the new capacity
+     */
+    private static int grow (int cap, int n)
+    {
+        return Math.max (n, Math.max (CAPACITY, cap + (cap >> 1)));
+    } // grow
+
+    /*************************************************************************************
+     * This class is the base of the primitive columns.  It tracks null values in a bit
+     * set, so the primitive arrays only hold non-null values.
+     */
+    private abstract static class Column
+            implements Serializable
+    {
+        BitSet nulls = new BitSet ();
+
+        /** Make room for position i and store value v there unless it is null. */
+        abstract void set (int i, Comparable v);
+
+        /** Return the non-null value at position i. */
+        abstract Comparable value (int i);
+
+        /** Compare the non-null value at position i with v (converted to the domain). */
+        abstract int compare (int i, Comparable v);
+
+        /** Return a column with the values at the given positions. */
+        abstract Column gather (int [] pos);
+
+        /** Return a copy of the first n values. */
+        abstract Column copy (int n);
+
+        void add (int i, Comparable v)
+        {
+            if (v == null) nulls.set (i);
+            set (i, v);
+        } // add
+
+        Comparable get (int i)
+        {
+            return nulls.get (i) ? null : value (i);
+        } // get
+
+        int filter (int [] sel, int n, Comparable lo, boolean loInc, Comparable hi, boolean hiInc, int [] out)
+        {
+            var m = 0;
+            for (var k = 0; k < n; k++) {
+                var i = (sel == null) ? k : sel [k];
+                if (nulls.get (i)) continue;
+                if (lo != null) { var c = compare (i, lo); if (c < 0 || c == 0 && ! loInc) continue; }
+                if (hi != null) { var c = compare (i, hi); if (c > 0 || c == 0 && ! hiInc) continue; }
+                out [m++] = i;
+            } // for
+            return m;
+        } // filter
+
+        /** Compare x with the number v exactly: as longs if v is integral, else as doubles
+         *  (so that 2 < 2.5 rather than 2 == (long) 2.5). */
+        static int compareLong (long x, Comparable v)
+        {
+            if (integral (v)) return Long.compare (x, ((Number) v).longValue ());
+            var d = ((Number) v).doubleValue ();
+            return (x < d) ? -1 : (x > d) ? 1 : 0;
+        } // compareLong
+
+        static boolean integral (Comparable v)
+        {
+            return v == null || v instanceof Integer || v instanceof Long || v instanceof Short || v instanceof Byte;
+        } // integral
+
+        BitSet gatherNulls (int [] pos)
+        {
+            var bs = new BitSet ();
+            if (! nulls.isEmpty ()) for (var k = 0; k < pos.length; k++) if (nulls.get (pos [k])) bs.set (k);
+            return bs;
+        } // gatherNulls
+
+    } // Column class
+
+    /*************************************************************************************
+     * Column of Integer, Short or Byte values stored as int.
+     */
+    private static class IntColumn
+            extends Column
+    {
+        final Class dom;
+        int [] data = new int [0];
+
+        IntColumn (Class _dom) { dom = _dom; }
+
+        void set (int i, Comparable v)
+        {
+            if (i >= data.length) data = Arrays.copyOf (data, grow (data.length, i + 1));
+            if (v != null) data [i] = ((Number) v).intValue ();
+        } // set
+
+        Comparable value (int i)
+        {
+            if (dom == Short.class) return (short) data [i];
+            if (dom == Byte.class)  return (byte) data [i];
+            return data [i];
+        } // value
+
+        int compare (int i, Comparable v) { return compareLong (data [i], v); }
+
+        int filter (int [] sel, int n, Comparable lo, boolean loInc, Comparable hi, boolean hiInc, int [] out)
+        {
+            if (! nulls.isEmpty () || ! integral (lo) || ! integral (hi)) {
+                return super.filter (sel, n, lo, loInc, hi, hiInc, out);
+            } // if
+            var l = (lo == null) ? Long.MIN_VALUE : ((Number) lo).longValue () + (loInc ? 0 : 1);
+            var h = (hi == null) ? Long.MAX_VALUE : ((Number) hi).longValue () - (hiInc ? 0 : 1);
+            var m = 0;
+            for (var k = 0; k < n; k++) {
+                var i = (sel == null) ? k : sel [k];
+                if (data [i] >= l && data [i] <= h) out [m++] = i;
+            } // for
+            return m;
+        } // filter
+
+        Column gather (int [] pos)
+        {
+            var c = new IntColumn (dom);
+            c.data  = new int [pos.length];
+            for (var k = 0; k < pos.length; k++) c.data [k] = data [pos [k]];
+            c.nulls = gatherNulls (pos);
+            return c;
+        } // gather
+
+        Column copy (int n)
+        {
+            var c = new IntColumn (dom);
+            c.data  = Arrays.copyOf (data, n);
+            c.nulls = (BitSet) nulls.clone ();
+            return c;
+        } // copy
+
+    } // IntColumn class
+
+    /*************************************************************************************
+     * Column of Long values stored as long.
+     */
+    private static class LongColumn
+            extends Column
+    {
+        long [] data = new long [0];
+
+        void set (int i, Comparable v)
+        {
+            if (i >= data.length) data = Arrays.copyOf (data, grow (data.length, i + 1));
+            if (v != null) data [i] = ((Number) v).longValue ();
+        } // set
+
+        Comparable value (int i) { return data [i]; }
+
+        int compare (int i, Comparable v) { return compareLong (data [i], v); }
+
+        Column gather (int [] pos)
+        {
+            var c = new LongColumn ();
+            c.data  = new long [pos.length];
+            for (var k = 0; k < pos.length; k++) c.data [k] = data [pos [k]];
+            c.nulls = gatherNulls (pos);
+            return c;
+        } // gather
+
+        Column copy (int n)
+        {
+            var c = new LongColumn ();
+            c.data  = Arrays.copyOf (data, n);
+            c.nulls = (BitSet) nulls.clone ();
+            return c;
+        } // copy
+
+    } // LongColumn class
+
+    /*************************************************************************************
+     * Column of Double or Float values stored as double.
+     */
+    private static class DoubleColumn
+            extends Column
+    {
+        final Class dom;
+        double [] data = new double [0];
+
+        DoubleColumn (Class _dom) { dom = _dom; }
+
+        void set (int i, Comparable v)
+        {
+            if (i >= data.length) data = Arrays.copyOf (data, grow (data.length, i + 1));
+            if (v != null) data [i] = (dom == Float.class) ? ((Number) v).floatValue () : ((Number) v).doubleValue ();
+        } // set
+
+        Comparable value (int i)
+        {
+            return (dom == Float.class) ? (Comparable) (float) data [i] : (Comparable) data [i];
+        } // value
+
+        int compare (int i, Comparable v) { return Double.compare (data [i], ((Number) v).doubleValue ()); }
+
+        Column gather (int [] pos)
+        {
+            var c = new DoubleColumn (dom);
+            c.data  = new double [pos.length];
+            for (var k = 0; k < pos.length; k++) c.data [k] = data [pos [k]];
+            c.nulls = gatherNulls (pos);
+            return c;
+        } // gather
+
+        Column copy (int n)
+        {
+            var c = new DoubleColumn (dom);
+            c.data  = Arrays.copyOf (data, n);
+            c.nulls = (BitSet) nulls.clone ();
+            return c;
+        } // copy
+
+    } // DoubleColumn class
+
+    /*************************************************************************************
+     * Column of Character values stored as char.
+     */
+    private static class CharColumn
+            extends Column
+    {
+        char [] data = new char [0];
+
+        void set (int i, Comparable v)
+        {
+            if (i >= data.length) data = Arrays.copyOf (data, grow (data.length, i + 1));
+            if (v != null) data [i] = (Character) v;
+        } // set
+
+        Comparable value (int i) { return data [i]; }
+
+        int compare (int i, Comparable v) { return Character.compare (data [i], (Character) v); }
+
+        Column gather (int [] pos)
+        {
+            var c = new CharColumn ();
+            c.data  = new char [pos.length];
+            for (var k = 0; k < pos.length; k++) c.data [k] = data [pos [k]];
+            c.nulls = gatherNulls (pos);
+            return c;
+        } // gather
+
+        Column copy (int n)
+        {
+            var c = new CharColumn ();
+            c.data  = Arrays.copyOf (data, n);
+            c.nulls = (BitSet) nulls.clone ();
+            return c;
+        } // copy
+
+    } // CharColumn class
+
+    /*************************************************************************************
+     * Column of String values stored as dictionary codes (-1 for null).  Derived columns
+     * (from gather, copy or project) share the dictionary.
+     */
+    private static class CodeColumn
+            extends Column
+    {
+        final Dictionary dict;
+        int [] data = new int [0];
+
+        CodeColumn (Dictionary _dict) { dict = _dict; }
+
+        void set (int i, Comparable v)
+        {
+            if (i >= data.length) data = Arrays.copyOf (data, grow (data.length, i + 1));
+            data [i] = dict.encodeOrNull (v);
+        } // set
+
+        Comparable value (int i) { return dict.decode (data [i]); }
+
+        @SuppressWarnings("unchecked")
+        int compare (int i, Comparable v) { return dict.decode (data [i]).compareTo (v); }
+
+        @SuppressWarnings("unchecked")
+        int filter (int [] sel, int n, Comparable lo, boolean loInc, Comparable hi, boolean hiInc, int [] out)
+        {
+            var m = 0;
+            if (lo != null && loInc && hiInc && lo.equals (hi)) {            // equality: compare codes
+                var code = dict.lookup (lo);
+                if (code < 0) return 0;
+                for (var k = 0; k < n; k++) {
+                    var i = (sel == null) ? k : sel [k];
+                    if (data [i] == code) out [m++] = i;
+                } // for
+                return m;
+            } // if
+
+            var ok = new boolean [dict.size ()];                             // decide once per code
+            for (var c = 0; c < ok.length; c++) {
+                var v = dict.decode (c);
+                var q = true;
+                if (lo != null) { var d = v.compareTo (lo); q = d > 0 || d == 0 && loInc; }
+                if (q && hi != null) { var d = v.compareTo (hi); q = d < 0 || d == 0 && hiInc; }
+                ok [c] = q;
+            } // for
+            for (var k = 0; k < n; k++) {
+                var i = (sel == null) ? k : sel [k];
+                if (data [i] >= 0 && ok [data [i]]) out [m++] = i;
+            } // for
+            return m;
+        } // filter
+
+        Column gather (int [] pos)
+        {
+            var c = new CodeColumn (dict);
+            c.data  = new int [pos.length];
+            for (var k = 0; k < pos.length; k++) c.data [k] = data [pos [k]];
+            c.nulls = gatherNulls (pos);
+            return c;
+        } // gather
+
+        Column copy (int n)
+        {
+            var c = new CodeColumn (dict);
+            c.data  = Arrays.copyOf (data, n);
+            c.nulls = (BitSet) nulls.clone ();
+            return c;
+        } // copy
+
+    } // CodeColumn class
+
+    /*************************************************************************************
+     * Column of values of any other domain stored as references.
+     */
+    private static class ObjectColumn
+            extends Column
+    {
+        Comparable [] data = new Comparable [0];
+
+        void set (int i, Comparable v)
+        {
+            if (i >= data.length) data = Arrays.copyOf (data, grow (data.length, i + 1));
+            if (v != null) data [i] = v;
+        } // set
+
+        Comparable value (int i) { return data [i]; }
+
+        @SuppressWarnings("unchecked")
+        int compare (int i, Comparable v) { return data [i].compareTo (v); }
+
+        Column gather (int [] pos)
+        {
+            var c = new ObjectColumn ();
+            c.data  = new Comparable [pos.length];
+            for (var k = 0; k < pos.length; k++) c.data [k] = data [pos [k]];
+            c.nulls = gatherNulls (pos);
+            return c;
+        } // gather
+
+        Column copy (int n)
+        {
+            var c = new ObjectColumn ();
+            c.data  = Arrays.copyOf (data, n);
+            c.nulls = (BitSet) nulls.clone ();
+            return c;
+        } // copy
+
+    } // ObjectColumn class
+
+} // ColumnStore class
+
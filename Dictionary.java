@@ -0,0 +1,87 @@
+/*****************************************************************************************
+ * @file  Dictionary.java
+ *
+ * @author   John Miller
+ */
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*****************************************************************************************
+ * The Dictionary class encodes the distinct values of an attribute as small integer codes
+ * (0, 1, 2, ...) in order of first appearance.  Columns with few distinct values (e.g.,
+ * genre or studioName) may then be stored and compared as codes, keeping a single copy of
+ * each value.
+ */
+public class Dictionary
+       implements Serializable
+{
+    /** Map from each value to its code
+     */
+    private final Map <Comparable, Integer> codes = new HashMap <> ();
+
+    /** List of values indexed by code
+     */
+    private final List <Comparable> values = new ArrayList <> ();
+
+    /*************************************************************************************
+     * Return the code for the given value, adding the value if it is new.
+     * @param v  the value to encode
+     * @return  the value's code
+     */
+    public int encode (Comparable v)
+    {
+        var c = codes.get (v);
+        if (c == null) {
+            c = values.size ();
+            codes.put (v, c);
+            values.add (v);
+        } // if
+        return c;
+    } // encode
+
+    /*************************************************************************************
+     * Return the code for the given value without adding it.
+     * @param v  the value to look up
+     * @return  the value's code, or -1 if the value is not in the dictionary
+     */
+    public int lookup (Comparable v)
+    {
+        var c = codes.get (v);
+        return (c == null) ? -1 : c;
+    } // lookup
+
+    /*************************************************************************************
+     * Return the code for the given value, adding it if it is new, with -1 for null.
+     * @param v  the value to encode (may be null)
+     * @return  the value's code, or -1 for null
+     */
+    public int encodeOrNull (Comparable v)
+    {
+        return (v == null) ? -1 : encode (v);
+    } // encodeOrNull
+
+    /*************************************************************************************
+     * Return the value for the given code.
+     * @param code  the code to decode
+     * @return  the value with that code
+     */
+    public Comparable decode (int code)
+    {
+        return values.get (code);
+    } // decode
+
+    /*************************************************************************************
+     * Return the number of distinct values (codes) in the dictionary.
+     * @return  the size of the dictionary
+     */
+    public int size ()
+    {
+        return values.size ();
+    } // size
+
+} // Dictionary class
+
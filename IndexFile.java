@@ -0,0 +1,294 @@
+/*****************************************************************************************
+ * @file  IndexFile.java
+ *
+ * @author   John Miller
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/*****************************************************************************************
+ * The IndexFile class reads and writes the binary file holding a table's indices next to
+ * its table file, so that reopening a table need not rebuild them from its tuples.  The
+ * file starts with the stamp of the table file it was written for and the number of
+ * tuples it covers, followed by a section per index: its attributes, map type, whether it
+ * is unique (the table's index) or not (a secondary index) and its entries in the map's
+ * order.  An entry is a key, encoded as TableFile encodes tuples, followed by the row id
+ * (or the row ids) of the tuples having it.  The file ends with a CRC32 of its contents.
+ * A file that is damaged or whose stamp does not match the table file is ignored.
+ */
+public class IndexFile
+{
+    /** The magic number at the start of every index file ("RIDX")
+     */
+    public static final int MAGIC = 0x52494458;
+
+    /** The version of the file format
+     */
+    private static final short VERSION = 1;
+
+    /*************************************************************************************
+     * This class holds one index of an index file: written from a map, read back as
+     * parallel arrays of keys and row ids.
+     */
+    public static class Index
+    {
+        String          attrs;                                               // indexed attributes
+        String          mapType;                                             // Table.MapType name
+        boolean         unique;                                              // one row id per key
+        Class []        domain;                                              // domains of attrs
+        Map <KeyType, ?> map;                                                // the index (to write)
+        KeyType []      keys;                                                // the keys (as read)
+        int []          rows;                                                // the row ids (as read)
+        int []          first;                                               // keys [i] has rows [first [i] .. first [i+1]) if not unique
+
+        Index () {}
+
+        /*********************************************************************************
+         * Construct an index to write.
+         * @param _attrs    the indexed attributes
+         * @param _mapType  the name of the map type
+         * @param _unique   whether the map's values are row ids (else lists of row ids)
+         * @param _domain   the domains of the indexed attributes
+         * @param _map      the index
+         */
+        Index (String _attrs, String _mapType, boolean _unique, Class [] _domain, Map <KeyType, ?> _map)
+        {
+            attrs   = _attrs;
+            mapType = _mapType;
+            unique  = _unique;
+            domain  = _domain;
+            map     = _map;
+        } // constructor
+
+        /*********************************************************************************
+         * Return the row ids of the i-th key of a secondary index.
+         * @param i  the position of the key
+         * @return  the list of row ids, in row order
+         */
+        List <Integer> rowsOf (int i)
+        {
+            var list = new ArrayList <Integer> (first [i + 1] - first [i]);
+            for (var r = first [i]; r < first [i + 1]; r++) list.add (rows [r]);
+            return list;
+        } // rowsOf
+
+    } // Index class
+
+    /** The number of tuples (the first rows of the table) the indices cover
+     */
+    final int nRows;
+
+    /** The indices held in the file
+     */
+    final List <Index> indexes;
+
+    /*************************************************************************************
+     * Construct the contents of an index file.
+     * @param _nRows    the number of tuples covered
+     * @param _indexes  the indices
+     */
+    private IndexFile (int _nRows, List <Index> _indexes)
+    {
+        nRows   = _nRows;
+        indexes = _indexes;
+    } // constructor
+
+    /*************************************************************************************
+     * Return the stamp of a table file held in the buffer: a CRC32 of its header pages and
+     * its length.  The header holds the number of tuples and a CRC32 of every data page
+     * (see TableFile), so any change to the tuples changes the stamp.
+     * @param buf  the buffer holding the whole table file
+     * @return  the stamp
+     */
+    public static int stamp (ByteBuffer buf)
+    {
+        var crc  = new CRC32 ();
+        var size = buf.limit ();
+        var head = Math.min (size, buf.getInt (10) * TableFile.PAGE);
+        crc.update (buf.slice (0, head));
+        crc.update (ByteBuffer.allocate (8).putLong (size).flip ());
+        return (int) crc.getValue ();
+    } // stamp
+
+    /*************************************************************************************
+     * Return the stamp of the given table file (see stamp (ByteBuffer)).  The file
+     * is mapped, so only its header pages are read.
+     * @param file  the table file
+     * @return  the stamp
+     */
+    public static int stamp (File file)
+           throws IOException
+    {
+        try (var ch = FileChannel.open (file.toPath (), READ)) {
+            return stamp (ch.map (FileChannel.MapMode.READ_ONLY, 0, ch.size ()));
+        } // try
+    } // stamp
+
+    /*************************************************************************************
+     * Write the indices to the given file for a table file with the given stamp.  As for
+     * TableFile.write, the file is written next to its final location and moved into place.
+     * @param file     the index file to write
+     * @param stamp    the stamp of the table file
+     * @param nRows    the number of tuples the indices cover
+     * @param indexes  the indices to write
+     */
+    public static void write (File file, int stamp, int nRows, List <Index> indexes)
+           throws IOException
+    {
+        var tmp = new File (file.getPath () + ".tmp");
+        var crc = new CRC32 ();
+
+        try (var fos = new FileOutputStream (tmp)) {
+            var out = new DataOutputStream (new CheckedOutputStream (new BufferedOutputStream (fos, 1 << 16), crc));
+            out.writeInt (MAGIC);
+            out.writeShort (VERSION);
+            out.writeInt (stamp);
+            out.writeInt (nRows);
+            out.writeInt (indexes.size ());
+            var row = ByteBuffer.allocate (256);
+            for (var ix : indexes) {
+                writeString (out, ix.attrs);
+                writeString (out, ix.mapType);
+                out.writeBoolean (ix.unique);
+                out.writeInt (ix.domain.length);
+                for (var d : ix.domain) writeString (out, d.getSimpleName ());
+                var total = 0;                                               // number of row ids
+                if (ix.unique) total = ix.map.size ();
+                else for (var v : ix.map.values ()) total += ((List <?>) v).size ();
+                out.writeInt (ix.map.size ());
+                out.writeInt (total);
+
+                for (var e : ix.map.entrySet ()) {
+                    var k    = e.getKey ();
+                    var vals = new Comparable [k.arity ()];
+                    for (var j = 0; j < vals.length; j++) vals [j] = k.get (j);
+                    row = TableFile.encodeRow (row, vals, ix.domain);
+                    out.writeShort (row.remaining ());
+                    out.write (row.array (), 0, row.remaining ());
+                    if (ix.unique) {
+                        out.writeInt ((Integer) e.getValue ());
+                    } else {
+                        var rows = (List <?>) e.getValue ();
+                        out.writeInt (rows.size ());
+                        for (var r : rows) out.writeInt ((Integer) r);
+                    } // if
+                } // for
+            } // for
+            out.flush ();
+            out.writeInt ((int) crc.getValue ());                            // CRC of all that precedes it
+            out.flush ();
+            fos.getChannel ().force (true);
+        } // try
+        Files.move (tmp.toPath (), file.toPath (), StandardCopyOption.REPLACE_EXISTING,
+                                                   StandardCopyOption.ATOMIC_MOVE);
+    } // write
+
+    /*************************************************************************************
+     * Read the given index file, which is memory-mapped rather than read.  Return null if
+     * there is no such file, if it was written for a table file with another stamp or if
+     * it is damaged, in which case the indices must be rebuilt from the tuples.
+     * @param file   the index file to read
+     * @param stamp  the stamp of the table file the indices are wanted for
+     * @return  the contents of the file, or null
+     */
+    public static IndexFile read (File file, int stamp)
+    {
+        if (! file.exists ()) return null;
+        try (var ch = FileChannel.open (file.toPath (), READ)) {
+            var size = ch.size ();
+            if (size < 22 || size > Integer.MAX_VALUE) return null;
+            var buf = ch.map (FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buf.getInt (0) != MAGIC || buf.getShort (4) != VERSION || buf.getInt (6) != stamp) return null;
+            var crc = new CRC32 ();
+            crc.update (buf.slice (0, (int) size - 4));
+            if ((int) crc.getValue () != buf.getInt ((int) size - 4)) {
+                Log.error ("read ERROR: index file " + file + " is damaged");
+                return null;
+            } // if
+
+            var pos     = new int [] { 10 };                                 // read position
+            var nRows   = buf.getInt (pos [0]);
+            var n       = buf.getInt (pos [0] + 4);
+            var indexes = new ArrayList <Index> (n);
+            pos [0] += 8;
+            for (var x = 0; x < n; x++) {
+                var ix = new Index ();
+                ix.attrs   = readString (buf, pos);
+                ix.mapType = readString (buf, pos);
+                ix.unique  = buf.get (pos [0]++) != 0;
+                ix.domain  = new Class [buf.getInt (pos [0])];
+                pos [0] += 4;
+                for (var j = 0; j < ix.domain.length; j++) {
+                    var d = readString (buf, pos);
+                    try {
+                        ix.domain [j] = Class.forName ("java.lang." + d);
+                    } catch (ClassNotFoundException ex) {
+                        Log.error ("read ERROR: unknown domain " + d);
+                        return null;
+                    } // try
+                } // for
+                var nKeys = buf.getInt (pos [0]);
+                ix.keys   = new KeyType [nKeys];
+                ix.rows   = new int [buf.getInt (pos [0] + 4)];
+                ix.first  = ix.unique ? null : new int [nKeys + 1];
+                pos [0] += 8;
+
+                var p = pos [0];
+                var r = 0;
+                for (var i = 0; i < nKeys; i++) {
+                    var len = Short.toUnsignedInt (buf.getShort (p));
+                    ix.keys [i] = KeyType.of (TableFile.decodeAt (buf, p + 2, ix.domain));
+                    p += 2 + len;
+                    if (ix.unique) {
+                        ix.rows [r++] = buf.getInt (p);
+                        p += 4;
+                    } else {
+                        ix.first [i] = r;
+                        var m = buf.getInt (p);
+                        p += 4;
+                        for (var k = 0; k < m; k++, p += 4) ix.rows [r++] = buf.getInt (p);
+                    } // if
+                } // for
+                if (! ix.unique) ix.first [nKeys] = r;
+                pos [0] = p;
+                indexes.add (ix);
+            } // for
+            return new IndexFile (nRows, indexes);
+        } catch (IOException | RuntimeException ex) {
+            Log.error ("read ERROR: cannot read index file " + file + ": " + ex);
+            return null;
+        } // try
+    } // read
+
+    /*************************************************************************************
+     * Write a string as its length followed by its UTF-8 bytes.
+     */
+    private static void writeString (DataOutputStream out, String s)
+           throws IOException
+    {
+        var bytes = s.getBytes (StandardCharsets.UTF_8);
+        out.writeShort (bytes.length);
+        out.write (bytes);
+    } // writeString
+
+    /*************************************************************************************
+     * Read a string written by writeString at pos [0], advancing pos [0] past it.
+     */
+    private static String readString (ByteBuffer buf, int [] pos)
+    {
+        var bytes = new byte [Short.toUnsignedInt (buf.getShort (pos [0]))];
+        buf.get (pos [0] + 2, bytes);
+        pos [0] += 2 + bytes.length;
+        return new String (bytes, StandardCharsets.UTF_8);
+    } // readString
+
+} // IndexFile class
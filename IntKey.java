@@ -0,0 +1,104 @@
+/*****************************************************************************************
+ * @file  IntKey.java
+ *
+ * @author   John Miller
+ */
+
+/*****************************************************************************************
+ * The IntKey class provides a key for a single Integer attribute that holds the value as
+ * an int, so that comparing and hashing keys neither unboxes nor walks an array.  Keys
+ * made with 'set' may be reused as probes for lookups (never as stored keys).
+ */
+public final class IntKey
+       extends KeyType
+{
+    /** The attribute value of the key
+     */
+    private int value;
+
+    /** The hash code of the key (computed when the value is set)
+     */
+    private int hash;
+
+    /*************************************************************************************
+     * Construct a key for the given int value.
+     * @param _value  the attribute value
+     */
+    public IntKey (int _value)
+    {
+        set (_value);
+    } // constructor
+
+    /*************************************************************************************
+     * Change the value of this key, so it may be reused to probe an index without
+     * allocating a key per lookup.  A key stored in a map must never be changed.
+     * @param _value  the new attribute value
+     * @return  this key
+     */
+    IntKey set (int _value)
+    {
+        value = _value;
+        hash  = mix (Integer.hashCode (_value));                              // as combine (0, value)
+        return this;
+    } // set
+
+    /*************************************************************************************
+     * Return the attribute value of the key as an int.
+     * @return  the attribute value
+     */
+    public int intValue ()
+    {
+        return value;
+    } // intValue
+
+    /*************************************************************************************
+     * Return the number of attribute values in the key.
+     * @return  1
+     */
+    public int arity ()
+    {
+        return 1;
+    } // arity
+
+    /*************************************************************************************
+     * Return the j-th (only the 0-th) attribute value of the key.
+     * @param j  the position of the attribute within the key
+     * @return  the attribute value
+     */
+    public Comparable get (int j)
+    {
+        if (j != 0) throw new IndexOutOfBoundsException (j);
+        return value;
+    } // get
+
+    /*************************************************************************************
+     * Compare two keys, directly when the other key is also an IntKey.
+     * @param k  the other key (to compare with this)
+     * @return  resultant integer that's negative, zero or positive
+     */
+    public int compareTo (KeyType k)
+    {
+        return (k instanceof IntKey ik) ? Integer.compare (value, ik.value) : super.compareTo (k);
+    } // compareTo
+
+    /*************************************************************************************
+     * Determine whether two keys are equal.
+     * @param k  the other key (to compare with this)
+     * @return  true if equal, false otherwise
+     */
+    public boolean equals (Object k)
+    {
+        return (k instanceof IntKey ik) ? value == ik.value : super.equals (k);
+    } // equals
+
+    /*************************************************************************************
+     * Return the hash code for this key (the same as for a KeyType holding the Integer).
+     * @return  an integer hash code value
+     */
+    public int hashCode ()
+    {
+        return hash;
+    } // hashCode
+
+} // IntKey class
+
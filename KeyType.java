@@ -8,11 +8,17 @@
  */
 
 import java.io.Serializable;
+import java.util.Objects;
 
 import static java.lang.System.out;
 /*****************************************************************************************
  * The KeyType class provides a key type for handling both non-composite and composite keys.
  * A key is a minimal set of attributes that can be used to uniquely identify a tuple.
+ * Keys made by 'of' use a specialized subclass when one fits (IntKey, LongKey, PairKey);
+ * all representations compare, test equality and hash alike, so they may be mixed, e.g.,
+ * a KeyType built by a user may look up an index keyed by IntKey.  The hash code is
+ * computed once, at construction, and is well mixed (murmur3's finalizer), so that the
+ * low bits used by the hash maps to pick a bucket depend on all bits of the values.
  */
 public class KeyType
        implements Comparable <KeyType>, Serializable
@@ -21,13 +27,28 @@ public class KeyType
      */
     private final Comparable [] key;
 
+    /** The hash code of the key (computed at construction)
+     */
+    private final int hash;
+
+    /*************************************************************************************
+     * Construct an instance of a specialized subclass, which holds its own values and
+     * hash code.
+     */
+    protected KeyType ()
+    {
+         key  = null;
+         hash = 0;
+    } // constructor
+
     /*************************************************************************************
      * Construct an instance of KeyType from a Comparable array.  
      * @param _key  the primary key
      */
     public KeyType (Comparable [] _key)
     {
-         key = _key;
+         key  = _key;
+         hash = hash (key);
     } // constructor
 
     /*
@@ -40,44 +61,160 @@ public class KeyType
          key = new Comparable [keys.length + 1];
          key [0] = key0;
          for (var i = 1; i < key.length; i++) key [i] = keys [i-1];
+         hash = hash (key);
     } // constructor
 
+    /*************************************************************************************
+     * Make a key for a single attribute value, specialized for Integer and Long values.
+     * @param v  the attribute value
+     * @return  the key
+     */
+    public static KeyType of (Comparable v)
+    {
+        if (v instanceof Integer i) return new IntKey (i);
+        if (v instanceof Long l)    return new LongKey (l);
+        return new KeyType (new Comparable [] { v });
+    } // of
+
+    /*************************************************************************************
+     * Make a key for two attribute values (without an array unless one is null).
+     * @param v0  the first attribute value
+     * @param v1  the second attribute value
+     * @return  the key
+     */
+    public static KeyType of (Comparable v0, Comparable v1)
+    {
+        if (v0 == null || v1 == null) return new KeyType (new Comparable [] { v0, v1 });
+        return new PairKey (v0, v1);
+    } // of
+
+    /*************************************************************************************
+     * Make a key for the given attribute values, using a specialized representation for
+     * one or two values.
+     * @param vals  the attribute values
+     * @return  the key
+     */
+    public static KeyType of (Comparable [] vals)
+    {
+        return switch (vals.length) {
+            case 1  -> of (vals [0]);
+            case 2  -> of (vals [0], vals [1]);
+            default -> new KeyType (vals);
+        }; // switch
+    } // of
+
+    /*************************************************************************************
+     * Return the number of attribute values in the key.
+     * @return  the arity of the key
+     */
+    public int arity ()
+    {
+        return key.length;
+    } // arity
+
+    /*************************************************************************************
+     * Return the j-th attribute value of the key.
+     * @param j  the position of the attribute within the key
+     * @return  the attribute value
+     */
+    public Comparable get (int j)
+    {
+        return key [j];
+    } // get
+
     /*************************************************************************************
      * Compare two keys (negative => less than, zero => equals, positive => greater than).
+     * Null attribute values sort before all others.
      * @param k  the other key (to compare with this)
      * @return  resultant integer that's negative, zero or positive
      */
-    @SuppressWarnings("unchecked")
     public int compareTo (KeyType k)
     {
-        for (var i = 0; i < key.length; i++) {
-            if (key [i].compareTo (k.key [i]) < 0) return -1;
-            if (key [i].compareTo (k.key [i]) > 0) return 1;
+        var n = arity ();
+        for (var i = 0; i < n; i++) {
+            var c = compare (get (i), k.get (i));
+            if (c != 0) return c;
         } // for
         return 0;
     } // compareTo
 
     /*************************************************************************************
-     * Determine whether two keys are equal (equals must agree with compareTo).
+     * Compare two attribute values, nulls first.
+     * @param v  the first value
+     * @param w  the second value
+     * @return  -1, 0 or 1 as v is less than, equal to or greater than w
+     */
+    @SuppressWarnings("unchecked")
+    protected static int compare (Comparable v, Comparable w)
+    {
+        if (v == null || w == null) return (v == w) ? 0 : (v == null) ? -1 : 1;
+        var c = v.compareTo (w);
+        return (c < 0) ? -1 : (c > 0) ? 1 : 0;
+    } // compare
+
+    /*************************************************************************************
+     * Determine whether two keys are equal, i.e., have equal attribute values (null
+     * values being equal to each other).
      * @param k  the other key (to compare with this)
      * @return  true if equal, false otherwise
      */
     public boolean equals (Object k)
     {
-        return compareTo ((KeyType) k) == 0;
+        if (! (k instanceof KeyType kt) || arity () != kt.arity ()) return false;
+        var n = arity ();
+        for (var i = 0; i < n; i++) if (! Objects.equals (get (i), kt.get (i))) return false;
+        return true;
     } // equals
 
     /*************************************************************************************
-     * Compute a hash code for this object (equal objects should produce the same hash code).
+     * Return the hash code for this object (equal objects produce the same hash code).
      * @return  an integer hash code value
      */
     public int hashCode ()
     {
-        var sum = 0;
-        for (var i = 0; i < key.length; i++) sum = 7 * sum + key [i].hashCode ();
-        return sum;
+        return hash;
     } // hashCode
 
+    /*************************************************************************************
+     * Compute the hash code of the given attribute values: their hash codes combined as
+     * in List.hashCode (without its initial 1) and then mixed.
+     * @param vals  the attribute values
+     * @return  the hash code
+     */
+    private static int hash (Comparable [] vals)
+    {
+        var h = 0;
+        for (var v : vals) h = combine (h, v);
+        return mix (h);
+    } // hash
+
+    /*************************************************************************************
+     * Combine the hash so far with the hash code of the next attribute value.
+     * @param h  the hash of the preceding values (0 for none)
+     * @param v  the next value
+     * @return  the combined (not yet mixed) hash
+     */
+    protected static int combine (int h, Comparable v)
+    {
+        return 31 * h + Objects.hashCode (v);
+    } // combine
+
+    /*************************************************************************************
+     * Mix the bits of a combined hash (the finalizer of MurmurHash3), so that keys that
+     * differ in any bit differ in the low bits taken by 'hash % mod'.
+     * @param h  the combined hash
+     * @return  the mixed hash
+     */
+    protected static int mix (int h)
+    {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    } // mix
+
     /*************************************************************************************
      * Convert the key to a string.
      * @return  the string representation of the key
@@ -85,7 +222,7 @@ public class KeyType
     public String toString ()
     {
         var s = "Key (";
-        for (var i = 0; i < key.length; i++) s += " " + key [i];
+        for (var i = 0; i < arity (); i++) s += " " + get (i);
         return s + (" )");
     } // toString
 
@@ -122,6 +259,14 @@ public class KeyType
         out.println ("key1.equals (key3): " + key1.equals (key3));
         out.println ("key1.hashCode () == key2.hashCode (): " + (key1.hashCode () == key2.hashCode ()));
         out.println ("key1.hashCode () == key3.hashCode (): " + (key1.hashCode () == key3.hashCode ()));
+        out.println ();
+        var key4 = KeyType.of (new Comparable [] { "Star_Wars_2", 1980 });
+        var key5 = KeyType.of (1980);
+        out.println ("key4 = " + key4 + " (" + key4.getClass ().getName () + ")");
+        out.println ("key5 = " + key5 + " (" + key5.getClass ().getName () + ")");
+        out.println ("key1.equals (key4): " + key1.equals (key4) + ", key4.equals (key1): " + key4.equals (key1));
+        out.println ("key1.hashCode () == key4.hashCode (): " + (key1.hashCode () == key4.hashCode ()));
+        out.println ("key5.equals (new KeyType (1980)): " + key5.equals (new KeyType (1980)));
     } // main
 
 } // KeyType class
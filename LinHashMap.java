@@ -20,17 +20,21 @@ public class LinHashMap <K, V>
        extends AbstractMap <K, V>
        implements Serializable, Cloneable, Map <K, V>
 {
-    /** The debug flag
+    /** The default number of slots (for key-value pairs) per bucket.
      */
-    private static final boolean DEBUG = true;
+    public static final int SLOTS = 4;
+
+    /** The default threshold/upper bound on the load factor
+     */
+    public static final double THRESHOLD = 1.2;
 
     /** The number of slots (for key-value pairs) per bucket.
      */
-    private static final int SLOTS = 4;
+    private final int slots;
 
     /** The threshold/upper bound on the load factor
      */
-    private static final double THRESHOLD = 1.2;
+    private final double threshold;
 
     /** The class for type K.
      */
@@ -44,6 +48,7 @@ public class LinHashMap <K, V>
      * This inner class defines buckets that are stored in the hash table.
      */
     private class Bucket
+            implements Serializable
     {
         int    nKeys;
         K []   key;
@@ -54,8 +59,8 @@ public class LinHashMap <K, V>
         Bucket ()
         {
             nKeys = 0;
-            key   = (K []) Array.newInstance (classK, SLOTS);
-            value = (V []) Array.newInstance (classV, SLOTS);
+            key   = (K []) Array.newInstance (classK, slots);
+            value = (V []) Array.newInstance (classV, slots);
             next  = null;
         } // constructor
 
@@ -65,6 +70,12 @@ public class LinHashMap <K, V>
             return null;
         } // find
 
+        int indexOf (K k)
+        {
+            for (var j = 0; j < nKeys; j++) if (key[j].equals (k)) return j;
+            return -1;
+        } // indexOf
+
         void add (K k, V v)
         {
             key[nKeys]   = k;
@@ -99,7 +110,7 @@ public class LinHashMap <K, V>
 
     /** Counter for the number buckets accessed (for performance testing).
      */
-    private int count = 0;
+    private long count = 0;
 
     /** The counter for the total number of keys in the LinHash Map
      */
@@ -112,11 +123,26 @@ public class LinHashMap <K, V>
      */
     public LinHashMap (Class <K> _classK, Class <V> _classV)
     {
-        classK = _classK;
-        classV = _classV;
-        mod1   = 4;                                                          // initial size
-        mod2   = 2 * mod1;
-        hTable = new ArrayList <> ();
+        this (_classK, _classV, SLOTS, THRESHOLD);
+    } // constructor
+
+    /********************************************************************************
+     * Construct a hash table that uses Linear Hashing with the given bucket size and
+     * load factor threshold, e.g., to tune them with benchmarks.
+     * @param classK      the class for keys (K)
+     * @param classV      the class for values (V)
+     * @param _slots      the number of slots per bucket
+     * @param _threshold  the load factor beyond which a bucket chain is split
+     */
+    public LinHashMap (Class <K> _classK, Class <V> _classV, int _slots, double _threshold)
+    {
+        classK    = _classK;
+        classV    = _classV;
+        slots     = _slots;
+        threshold = _threshold;
+        mod1      = 4;                                                       // initial size
+        mod2      = 2 * mod1;
+        hTable    = new ArrayList <> ();
         for (var i = 0; i < mod1; i++) hTable.add (new Bucket ());
     } // constructor
 
@@ -128,7 +154,11 @@ public class LinHashMap <K, V>
     {
         var enSet = new HashSet <Map.Entry <K, V>> ();
 
-        //  T O   B E   I M P L E M E N T E D
+        for (var bh : hTable) {
+            for (var b = bh; b != null; b = b.next) {
+                for (var j = 0; j < b.nKeys; j++) enSet.add (new AbstractMap.SimpleEntry <> (b.key[j], b.value[j]));
+            } // for
+        } // for
             
         return enSet;
     } // entrySet
@@ -145,36 +175,66 @@ public class LinHashMap <K, V>
         return find ((K) key, hTable.get (i), true);
     } // get
 
+    /********************************************************************************
+     * Determine whether the hash table contains the given key.
+     * @param key  the key to look for
+     * @return  whether the key is present
+     */
+    public boolean containsKey (Object key)
+    {
+        return get (key) != null;
+    } // containsKey
+
     /********************************************************************************
      * Put the key-value pair in the hash table.  Split the 'isplit' bucket chain
-     * when the load factor is exceeded.
+     * when the load factor is exceeded.  At most one bucket chain is split per put,
+     * so the cost of growing the table is spread evenly over the insertions.
      * @param key    the key to insert
      * @param value  the value to insert
      * @return  the old/previous value, null if none
      */
     public V put (K key, V value)
     {
-        var i    = h (key);                                                  // hash to i-th bucket chain
-        var bh   = hTable.get (i);                                           // start with home bucket
-        var oldV = find (key, bh, false);                                    // find old value associated with key
-        out.println ("LinearHashMap.put: key = " + key + ", h() = " + i + ", value = " + value);
+        var i  = h (key);                                                    // hash to i-th bucket chain
+        var bh = hTable.get (i);                                             // start with home bucket
+        if (Log.isOn (Log.Level.TRACE)) Log.trace ("LinearHashMap.put: key = " + key + ", h() = " + i + ", value = " + value);
+
+        for (var b = bh; b != null; b = b.next) {                            // replace value of existing key
+            var j = b.indexOf (key);
+            if (j >= 0) { var oldV = b.value[j]; b.value[j] = value; return oldV; }
+        } // for
 
         keyCount++;                                                          // increment the key count
         var lf = loadFactor ();                                              // compute the load factor
-        if (DEBUG) out.println ("put: load factor = " + lf);
-        if (lf > THRESHOLD) split ();                                        // split beyond THRESHOLD
+        if (Log.isOn (Log.Level.TRACE)) Log.trace ("put: load factor = " + lf);
+        if (lf > threshold) {
+            split ();                                                        // split beyond threshold
+            bh = hTable.get (h (key));                                       // home bucket may have moved
+        } // if
+
+        append (bh, key, value);
+        return null;
+    } // put
 
+    /********************************************************************************
+     * Add the key-value pair to the first bucket with a free slot in the chain that
+     * starts with home bucket bh, adding a new overflow bucket if the chain is full.
+     * @param bh     the given home bucket
+     * @param key    the key to add
+     * @param value  the value to add
+     */
+    private void append (Bucket bh, K key, V value)
+    {
         var b = bh;
         while (true)  {
-            if (b.nKeys < SLOTS) { b.add (key, value); return oldV; }
+            if (b.nKeys < slots) { b.add (key, value); return; }
             if (b.next != null) b = b.next; else break;
         } // while
 
         var bn = new Bucket ();
         bn.add (key, value);
         b.next = bn;                                                         // add new bucket at end of chain
-        return oldV;
-    } // put
+    } // append
 
     /********************************************************************************
      * Print the hash table.
@@ -198,14 +258,41 @@ public class LinHashMap <K, V>
     } // print
  
     /********************************************************************************
-     * Return the size (SLOTS * number of home buckets) of the hash table. 
+     * Return the size (number of keys) of the hash table. 
      * @return  the size of the hash table
      */
     public int size ()
     {
-        return SLOTS * (mod1 + isplit);
+        return keyCount;
     } // size
 
+    /********************************************************************************
+     * Return the capacity (slots * number of home buckets) of the hash table. 
+     * @return  the number of slots in the home buckets
+     */
+    private int capacity ()
+    {
+        return slots * (mod1 + isplit);
+    } // capacity
+
+    /********************************************************************************
+     * Return the number of buckets accessed by get since the count was last reset.
+     * Divided by the number of gets, it gives the average chain length probed.
+     * @return  the number of buckets accessed
+     */
+    public long getCount ()
+    {
+        return count;
+    } // getCount
+
+    /********************************************************************************
+     * Reset the count of buckets accessed.
+     */
+    public void resetCount ()
+    {
+        count = 0;
+    } // resetCount
+
     /********************************************************************************
      * Split bucket chain 'isplit' by creating a new bucket chain at the end of the
      * hash table and redistributing the keys according to the high resolution hash
@@ -214,10 +301,25 @@ public class LinHashMap <K, V>
      */
     private void split ()
     {
-        out.println ("split: bucket chain " + isplit);
+        if (Log.isOn (Log.Level.TRACE)) Log.trace ("split: bucket chain " + isplit);
 
-        //  T O   B E   I M P L E M E N T E D
+        var old = hTable.get (isplit);
+        var b0  = new Bucket ();                                             // replaces chain isplit
+        var b1  = new Bucket ();                                             // new chain mod1 + isplit
+        hTable.set (isplit, b0);
+        hTable.add (b1);
 
+        for (var b = old; b != null; b = b.next) {
+            for (var j = 0; j < b.nKeys; j++) {
+                append (h2 (b.key[j]) == isplit ? b0 : b1, b.key[j], b.value[j]);
+            } // for
+        } // for
+
+        if (++isplit == mod1) {                                              // end of round: double
+            isplit = 0;
+            mod1   = mod2;
+            mod2   = 2 * mod1;
+        } // if
     } // split
 
     /********************************************************************************
@@ -226,7 +328,7 @@ public class LinHashMap <K, V>
      */
     private double loadFactor ()
     {
-        return keyCount / (double) size ();
+        return keyCount / (double) capacity ();
     } // loadFactor
 
     /********************************************************************************
@@ -247,13 +349,16 @@ public class LinHashMap <K, V>
     } // find
 
     /********************************************************************************
-     * Hash the key using the low resolution hash function.
+     * Hash the key using the low resolution hash function, switching to the high
+     * resolution hash function for bucket chains already split in this round.  The hash
+     * code is reduced with floorMod, so keys with negative hash codes have a bucket too.
      * @param key  the key to hash
      * @return  the location of the bucket chain containing the key-value pair
      */
     private int h (Object key)
     {
-        return key.hashCode () % mod1;
+        var i = Math.floorMod (key.hashCode (), mod1);
+        return (i < isplit) ? h2 (key) : i;
     } // h
 
     /********************************************************************************
@@ -263,7 +368,7 @@ public class LinHashMap <K, V>
      */
     private int h2 (Object key)
     {
-        return key.hashCode () % mod2;
+        return Math.floorMod (key.hashCode (), mod2);
     } // h2
 
     /********************************************************************************
@@ -291,6 +396,11 @@ public class LinHashMap <K, V>
         } // for
         out.println ("-------------------------------------------");
         out.println ("Average number of buckets accessed = " + ht.count / (double) totalKeys);
+
+        LinHashMap <KeyType, Integer> kt = new LinHashMap <> (KeyType.class, Integer.class);
+        for (var i = 1; i <= totalKeys; i += 2) kt.put (new KeyType (-i * 1024), i * i);    // negative, strided
+        for (var i = 0; i <= totalKeys; i++) kt.get (new KeyType (-i * 1024));
+        out.println ("Average number of buckets accessed (KeyType keys) = " + kt.count / (double) totalKeys);
     } // main
 
 } // LinHashMap class
@@ -0,0 +1,132 @@
+/*****************************************************************************************
+ * @file  Log.java
+ *
+ * @author   John Miller
+ */
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.function.Consumer;
+
+/*****************************************************************************************
+ * The Log class is the logging and tracing facility for the database.  Messages have a
+ * level and are passed to the sink (standard output unless replaced) when their level is
+ * enabled.  Statements (RA>, DDL>) are logged at INFO, per-tuple messages such as
+ * "DML> insert" at DEBUG and the internals of the maps at TRACE.  Callers on hot paths
+ * should test isOn before building a message, so that disabled messages cost nothing.
+ *
+ * #usage Log.setLevel (Log.Level.ERROR)
+ *        if (Log.isOn (Log.Level.DEBUG)) Log.debug ("DML> insert ... " + Arrays.toString (tup))
+ */
+public class Log
+{
+    /** The logging levels, from none to the most detailed
+     */
+    public enum Level { OFF, ERROR, INFO, DEBUG, TRACE }
+
+    /** The most detailed level that is logged
+     */
+    private static Level level = Level.INFO;
+
+    /** Where enabled messages are written
+     */
+    private static Consumer <String> sink = System.out::println;
+
+    /*************************************************************************************
+     * Set the most detailed level to log (OFF logs nothing).
+     * @param _level  the level
+     */
+    public static void setLevel (Level _level)
+    {
+        level = _level;
+    } // setLevel
+
+    /*************************************************************************************
+     * Return the most detailed level that is logged.
+     * @return  the level
+     */
+    public static Level getLevel ()
+    {
+        return level;
+    } // getLevel
+
+    /*************************************************************************************
+     * Set where enabled messages are written, e.g., a file or a list for testing.
+     * @param _sink  the consumer of messages
+     */
+    public static void setSink (Consumer <String> _sink)
+    {
+        sink = _sink;
+    } // setSink
+
+    /*************************************************************************************
+     * Determine whether messages at the given level are logged.
+     * @param lvl  the level of the message
+     * @return  whether it would be logged
+     */
+    public static boolean isOn (Level lvl)
+    {
+        return lvl != Level.OFF && lvl.ordinal () <= level.ordinal ();
+    } // isOn
+
+    /*************************************************************************************
+     * Log the message at the given level.
+     * @param lvl  the level of the message
+     * @param msg  the message
+     */
+    public static void log (Level lvl, String msg)
+    {
+        if (isOn (lvl)) sink.accept (msg);
+    } // log
+
+    /*************************************************************************************
+     * Log an error message.
+     * @param msg  the message
+     */
+    public static void error (String msg)
+    {
+        log (Level.ERROR, msg);
+    } // error
+
+    /*************************************************************************************
+     * Log an error message followed by the stack trace of the exception behind it.
+     * @param msg  the message
+     * @param ex   the exception
+     */
+    public static void error (String msg, Throwable ex)
+    {
+        if (! isOn (Level.ERROR)) return;
+        var trace = new StringWriter ();
+        ex.printStackTrace (new PrintWriter (trace));
+        sink.accept (msg + System.lineSeparator () + trace.toString ().stripTrailing ());
+    } // error
+
+    /*************************************************************************************
+     * Log an informational message (e.g., a statement being executed).
+     * @param msg  the message
+     */
+    public static void info (String msg)
+    {
+        log (Level.INFO, msg);
+    } // info
+
+    /*************************************************************************************
+     * Log a debugging message (e.g., a tuple being inserted).
+     * @param msg  the message
+     */
+    public static void debug (String msg)
+    {
+        log (Level.DEBUG, msg);
+    } // debug
+
+    /*************************************************************************************
+     * Log a tracing message (e.g., the workings of an index).
+     * @param msg  the message
+     */
+    public static void trace (String msg)
+    {
+        log (Level.TRACE, msg);
+    } // trace
+
+} // Log class
+
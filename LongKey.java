@@ -0,0 +1,107 @@
+/*****************************************************************************************
+ * @file  LongKey.java
+ *
+ * @author   John Miller
+ */
+
+/*****************************************************************************************
+ * The LongKey class provides a key for a single Long attribute that holds the value as
+ * a long, so that comparing and hashing keys neither unboxes nor walks an array.  Keys
+ * made with 'set' may be reused as probes for lookups (never as stored keys).  It mirrors
+ * IntKey rather than sharing a base class with it: a shared base would hold an int as a
+ * long and hash it as a Long, so a negative IntKey would no longer hash like the KeyType
+ * of its Integer, and each fast path would have to test which type it holds.
+ */
+public final class LongKey
+       extends KeyType
+{
+    /** The attribute value of the key
+     */
+    private long value;
+
+    /** The hash code of the key (computed when the value is set)
+     */
+    private int hash;
+
+    /*************************************************************************************
+     * Construct a key for the given long value.
+     * @param _value  the attribute value
+     */
+    public LongKey (long _value)
+    {
+        set (_value);
+    } // constructor
+
+    /*************************************************************************************
+     * Change the value of this key, so it may be reused to probe an index without
+     * allocating a key per lookup.  A key stored in a map must never be changed.
+     * @param _value  the new attribute value
+     * @return  this key
+     */
+    LongKey set (long _value)
+    {
+        value = _value;
+        hash  = mix (Long.hashCode (_value));                                 // as combine (0, value)
+        return this;
+    } // set
+
+    /*************************************************************************************
+     * Return the attribute value of the key as a long.
+     * @return  the attribute value
+     */
+    public long longValue ()
+    {
+        return value;
+    } // longValue
+
+    /*************************************************************************************
+     * Return the number of attribute values in the key.
+     * @return  1
+     */
+    public int arity ()
+    {
+        return 1;
+    } // arity
+
+    /*************************************************************************************
+     * Return the j-th (only the 0-th) attribute value of the key.
+     * @param j  the position of the attribute within the key
+     * @return  the attribute value
+     */
+    public Comparable get (int j)
+    {
+        if (j != 0) throw new IndexOutOfBoundsException (j);
+        return value;
+    } // get
+
+    /*************************************************************************************
+     * Compare two keys, directly when the other key is also an LongKey.
+     * @param k  the other key (to compare with this)
+     * @return  resultant integer that's negative, zero or positive
+     */
+    public int compareTo (KeyType k)
+    {
+        return (k instanceof LongKey ik) ? Long.compare (value, ik.value) : super.compareTo (k);
+    } // compareTo
+
+    /*************************************************************************************
+     * Determine whether two keys are equal.
+     * @param k  the other key (to compare with this)
+     * @return  true if equal, false otherwise
+     */
+    public boolean equals (Object k)
+    {
+        return (k instanceof LongKey ik) ? value == ik.value : super.equals (k);
+    } // equals
+
+    /*************************************************************************************
+     * Return the hash code for this key (the same as for a KeyType holding the Long).
+     * @return  an integer hash code value
+     */
+    public int hashCode ()
+    {
+        return hash;
+    } // hashCode
+
+} // LongKey class
+
@@ -0,0 +1,151 @@
+/*****************************************************************************************
+ * @file  MappedRows.java
+ *
+ * @author   John Miller
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/*****************************************************************************************
+ * The MappedRows class provides the tuples of a table file (see TableFile) as a list
+ * backed by a memory-mapped buffer.  Opening a file only maps it: a tuple is decoded
+ * from its page when it is accessed, and pages are read in by the operating system as
+ * they are touched.  Tuples added later are kept in a list on the heap after the mapped
+ * ones.  Decoded tuples are not cached, so each access yields a fresh array.
+ */
+public class MappedRows
+       extends AbstractList <Comparable []>
+       implements RandomAccess
+{
+    /** The buffer the table file is mapped into
+     */
+    private final ByteBuffer buf;
+
+    /** The header of the table file
+     */
+    private final TableFile.Header h;
+
+    /** The number of tuples before each data page (built on first random access)
+     */
+    private int [] first;
+
+    /** The tuples added after the file was mapped
+     */
+    private final List <Comparable []> tail = new ArrayList <> ();
+
+    /*************************************************************************************
+     * Construct a list of the tuples in a mapped table file.
+     * @param _buf  the buffer holding the file
+     * @param _h    the file's header
+     */
+    MappedRows (ByteBuffer _buf, TableFile.Header _h)
+    {
+        buf = _buf;
+        h   = _h;
+    } // constructor
+
+    /*************************************************************************************
+     * Map the given table file into memory.  The mapping remains valid after the file's
+     * channel is closed.
+     * @param file  the table file
+     * @return  the list of the file's tuples
+     */
+    public static MappedRows map (File file)
+           throws IOException
+    {
+        try (var ch = FileChannel.open (file.toPath (), READ)) {
+            var buf = ch.map (FileChannel.MapMode.READ_ONLY, 0, ch.size ());
+            return new MappedRows (buf, TableFile.readHeader (buf));
+        } // try
+    } // map
+
+    /*************************************************************************************
+     * Return the header of the mapped table file.
+     * @return  the header
+     */
+    public TableFile.Header header ()
+    {
+        return h;
+    } // header
+
+    /*************************************************************************************
+     * Return the i-th tuple, decoding it from its page if it is in the mapped file.
+     * @param i  the tuple's position
+     * @return  the tuple
+     */
+    public Comparable [] get (int i)
+    {
+        if (i < 0 || i >= size ()) throw new IndexOutOfBoundsException (i);
+        if (i >= h.nTuples) return tail.get (i - h.nTuples);
+        if (first == null) countRows ();
+        var p = Arrays.binarySearch (first, i);
+        if (p < 0) p = -p - 2;                                               // page holding tuple i
+        return TableFile.decodeRow (buf, (int) h.pageOffset (p), i - first [p], h.domain);
+    } // get
+
+    /*************************************************************************************
+     * Return the number of tuples, mapped and added.
+     * @return  the size of the list
+     */
+    public int size ()
+    {
+        return h.nTuples + tail.size ();
+    } // size
+
+    /*************************************************************************************
+     * Add a tuple after the mapped tuples.
+     * @param t  the tuple to add
+     * @return  true
+     */
+    public boolean add (Comparable [] t)
+    {
+        return tail.add (t);
+    } // add
+
+    /*************************************************************************************
+     * Return an iterator that decodes the mapped tuples page by page, followed by the
+     * added tuples.
+     * @return  an iterator over the tuples
+     */
+    public Iterator <Comparable []> iterator ()
+    {
+        return new Iterator <> () {
+            int p = 0, k = 0, n = (h.nPages > 0) ? h.rows (buf, (int) h.pageOffset (0), 0) : 0;
+            final Iterator <Comparable []> rest = tail.iterator ();
+
+            public boolean hasNext ()
+            {
+                while (k >= n && p + 1 < h.nPages) {
+                    k = 0;
+                    n = h.rows (buf, (int) h.pageOffset (++p), p);
+                } // while
+                return k < n || rest.hasNext ();
+            } // hasNext
+
+            public Comparable [] next ()
+            {
+                if (! hasNext ()) throw new NoSuchElementException ();
+                if (k < n) return TableFile.decodeRow (buf, (int) h.pageOffset (p), k++, h.domain);
+                return rest.next ();
+            } // next
+        }; // Iterator
+    } // iterator
+
+    /*************************************************************************************
+     * Count the tuples on each page to locate tuples by position.
+     */
+    private void countRows ()
+    {
+        var f = new int [h.nPages + 1];
+        for (var p = 0; p < h.nPages; p++) f [p + 1] = f [p] + h.rows (buf, (int) h.pageOffset (p), p);
+        first = f;
+    } // countRows
+
+} // MappedRows class
+
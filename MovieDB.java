@@ -5,6 +5,8 @@
  * @author   John Miller
  */
 
+import java.util.List;
+
 import static java.lang.System.out;
 /*
 ****************************************************************************************
@@ -27,7 +29,8 @@ class MovieDB
                                         "String Integer Integer String String Integer", "title year");
 
         var cinema = new Table ("cinema", "title year length genre studioName producerNo",
-                                          "String Integer Integer String String Integer", "title year");
+                                          "String Integer Integer String String Integer", "title year",
+                                          Table.MapType.TREE_MAP, Table.Layout.COLUMN);
 
         var movieStar = new Table ("movieStar", "name address gender birthdate",
                                                 "String String Character String", "name");
@@ -36,11 +39,15 @@ class MovieDB
                                             "String Integer String", "movieTitle movieYear starName");
 
         var movieExec = new Table ("movieExec", "certNo name address fee",
-                                                "Integer String String Float", "certNo");
+                                                "Integer String String Float", "certNo",
+                                                Table.MapType.LINHASH_MAP);
 
         var studio = new Table ("studio", "name address presNo",
                                           "String String Integer", "name");
 
+        movie.encode ("genre studioName");
+        studio.encode ("name");
+
         var film0 = new Comparable [] { "Star_Wars", 1977, 124, "sciFi", "Fox", 12345 };
         var film1 = new Comparable [] { "Star_Wars_2", 1980, 124, "sciFi", "Fox", 12345 };
         var film2 = new Comparable [] { "Rocky", 1985, 200, "action", "Universal", 12125 };
@@ -64,9 +71,11 @@ class MovieDB
         var star1 = new Comparable [] { "Mark_Hamill", "Brentwood", 'M', "8/8/88" };
         var star2 = new Comparable [] { "Harrison_Ford", "Beverly_Hills", 'M', "7/7/77" };
         out.println ();
+        movieStar.useLog (WriteAheadLog.Sync.GROUP);
         movieStar.insert (star0);
         movieStar.insert (star1);
         movieStar.insert (star2);
+        movieStar.commit ();
         movieStar.print ();
 
         var cast0 = new Comparable [] { "Star_Wars", 1977, "Carrie_Fisher" };
@@ -74,7 +83,7 @@ class MovieDB
         starsIn.insert (cast0);
         starsIn.print ();
 
-        var exec0 = new Comparable [] { 9999, "S_Spielberg", "Hollywood", 10000.00 };
+        var exec0 = new Comparable [] { 9999, "S_Spielberg", "Hollywood", 10000.00f };
         out.println ();
         movieExec.insert (exec0);
         movieExec.print ();
@@ -122,6 +131,26 @@ class MovieDB
         var t_iselect = movieStar.select (new KeyType ("Harrison_Ford"));
         t_iselect.print ();
 
+        //--------------------- indexed select: multiple keys
+
+        out.println ();
+        var t_iselect2 = movie.select (List.of (new KeyType ("Rocky", 1985),
+                                                new KeyType ("Rambo", 1978)));
+        t_iselect2.print ();
+
+        //--------------------- indexed select: key range
+
+        out.println ();
+        var t_rselect = movieStar.select (new KeyType ("C"), true, new KeyType ("I"), false);
+        t_rselect.print ();
+
+        //--------------------- secondary index select: genre
+
+        out.println ();
+        movie.createIndex ("genre");
+        var t_sselect = movie.select ("genre", new KeyType ("action"));
+        t_sselect.print ();
+
         //--------------------- union: movie UNION cinema
 
         out.println ();
@@ -134,12 +163,30 @@ class MovieDB
         var t_minus = movie.minus (cinema);
         t_minus.print ();
 
+        //--------------------- intersect: movie INTERSECT cinema
+
+        out.println ();
+        var t_intersect = movie.intersect (cinema);
+        t_intersect.print ();
+
         //--------------------- equi-join: movie JOIN studio ON studioName = name
 
         out.println ();
         var t_join = movie.join ("studioName", "name", studio);
         t_join.print ();
 
+        //--------------------- hash join: movie JOIN studio ON studioName = name
+
+        out.println ();
+        var t_h_join = movie.h_join ("studioName", "name", studio);
+        t_h_join.print ();
+
+        //--------------------- index join: starsIn JOIN movie ON movieTitle movieYear = title year
+
+        out.println ();
+        var t_i_join = starsIn.i_join ("movieTitle movieYear", "title year", movie);
+        t_i_join.print ();
+
         //--------------------- natural join: movie JOIN studio
 
         out.println ();
@@ -34,6 +34,21 @@ class MovieDB2
         movieExec.print ();
         studio.print ();
 
+        //--------------------- map: tuples decoded on access
+
+        out.println ();
+        var movieM = Table.map ("movie");
+        movieM.select (t -> (Integer) t [movieM.col ("year")] > 1980).print ();
+        movieM.select (new KeyType ("Rocky", 1985)).print ();
+
+        //--------------------- open: pages read through a buffer pool
+
+        out.println ();
+        var pool    = new BufferPool (4);
+        var studioP = Table.open ("studio", pool);
+        studioP.select ("address", new KeyType ("Universal_City")).print ();
+        out.println (pool);
+
     } // main
 
 } // MovieDB2 class
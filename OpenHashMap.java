@@ -0,0 +1,467 @@
+
+/************************************************************************************
+ * @file OpenHashMap.java
+ *
+ * @author  John Miller
+ */
+
+import java.io.Serializable;
+import java.util.*;
+
+import static java.lang.System.out;
+
+/*
+***********************************************************************************
+ * This class provides hash maps that use open addressing: the keys, values and key hash
+ * codes are kept in three flat parallel arrays (a power of two in length) rather than in
+ * bucket objects, and a key is found by linear probing from its home slot.  Insertion
+ * uses Robin Hood hashing: a key that has probed further than the key occupying a slot
+ * takes the slot and the displaced key moves on, which keeps probe sequences short and
+ * lets a miss stop as soon as it reaches a key closer to its home slot than the probe.
+ * A probe compares the cached hash codes first, so a key object is only dereferenced
+ * when its hash matches.  Null keys are not supported.  A map made by forRows maps keys
+ * to row ids (tuple positions) and keeps them in an int array, so an index neither boxes
+ * its values nor points at the tuples (see getRow and putRow).
+ */
+public class OpenHashMap <K, V>
+       extends AbstractMap <K, V>
+       implements Serializable, Map <K, V>
+{
+    /** The default initial capacity (number of slots).
+     */
+    public static final int CAPACITY = 16;
+
+    /** The default upper bound on the load factor (the table doubles beyond it).
+     */
+    public static final double MAX_LOAD = 0.8;
+
+    /** The upper bound on the load factor.
+     */
+    private final double maxLoad;
+
+    /** The keys, values and hash codes of the keys in each slot (key null => empty).
+     *  A row index keeps its values in rows instead of vals (which is then null).
+     */
+    private Object [] keys;
+    private Object [] vals;
+    private int []    rows;
+    private int []    hashes;
+
+    /** Whether the values are row ids kept in rows
+     */
+    private final boolean rowIndex;
+
+    /** The number of slots less one (the slots are a power of two).
+     */
+    private int mask;
+
+    /** The number of keys in the map.
+     */
+    private int keyCount = 0;
+
+    /** The number of keys beyond which the table is doubled.
+     */
+    private int limit;
+
+    /** Counter for the number of slots probed by get (for performance testing).
+     */
+    private long count = 0;
+
+    /********************************************************************************
+     * Construct an empty open addressing hash map.
+     */
+    public OpenHashMap ()
+    {
+        this (CAPACITY, MAX_LOAD);
+    } // constructor
+
+    /********************************************************************************
+     * Construct an empty open addressing hash map with room for the given number of
+     * slots (rounded up to a power of two) and the given load factor bound.
+     * @param capacity  the initial number of slots
+     * @param _maxLoad  the load factor beyond which the table is doubled (below 1)
+     */
+    public OpenHashMap (int capacity, double _maxLoad)
+    {
+        this (capacity, _maxLoad, false);
+    } // constructor
+
+    /********************************************************************************
+     * Construct an empty open addressing hash map, keeping the values as ints if it is
+     * a row index.
+     * @param capacity   the initial number of slots
+     * @param _maxLoad   the load factor beyond which the table is doubled (below 1)
+     * @param _rowIndex  whether the values are row ids
+     */
+    private OpenHashMap (int capacity, double _maxLoad, boolean _rowIndex)
+    {
+        if (_maxLoad <= 0.0 || _maxLoad >= 1.0) throw new IllegalArgumentException ("OpenHashMap: maxLoad must be in (0, 1)");
+        maxLoad  = _maxLoad;
+        rowIndex = _rowIndex;
+        allocate (tableSize (capacity));
+    } // constructor
+
+    /********************************************************************************
+     * Make an empty map from keys to row ids (non-negative ints) that keeps the row ids
+     * in an int array.  Use getRow and putRow to avoid boxing them.
+     * @param <K>  the type of the keys
+     * @return  the row index
+     */
+    public static <K> OpenHashMap <K, Integer> forRows ()
+    {
+        return new OpenHashMap <> (CAPACITY, MAX_LOAD, true);
+    } // forRows
+
+    /********************************************************************************
+     * Return a set containing all the entries as pairs of keys and values.
+     * @return  the set view of the map
+     */
+    public Set <Map.Entry <K, V>> entrySet ()
+    {
+        return new AbstractSet <> () {
+            public int size () { return keyCount; }
+
+            public Iterator <Map.Entry <K, V>> iterator ()
+            {
+                return new Iterator <> () {
+                    int i = advance (0);
+
+                    private int advance (int j)
+                    {
+                        while (j < keys.length && keys [j] == null) j++;
+                        return j;
+                    } // advance
+
+                    public boolean hasNext () { return i < keys.length; }
+
+                    @SuppressWarnings("unchecked")
+                    public Map.Entry <K, V> next ()
+                    {
+                        if (i >= keys.length) throw new NoSuchElementException ();
+                        var e = new AbstractMap.SimpleImmutableEntry <> ((K) keys [i], value (i));
+                        i = advance (i + 1);
+                        return e;
+                    } // next
+                }; // Iterator
+            } // iterator
+        }; // AbstractSet
+    } // entrySet
+
+    /********************************************************************************
+     * Given the key, look up the value in the hash table.
+     * @param key  the key used for look up
+     * @return  the value associated with the key
+     */
+    public V get (Object key)
+    {
+        var i = find (key, spread (key), true);
+        return (i < 0) ? null : value (i);
+    } // get
+
+    /********************************************************************************
+     * Given the key, look up its row id in a row index (without boxing it).
+     * @param key  the key used for look up
+     * @return  the row id associated with the key, or -1 if there is none
+     */
+    public int getRow (Object key)
+    {
+        if (! rowIndex) throw new UnsupportedOperationException ("OpenHashMap: getRow needs a row index");
+        var i = find (key, spread (key), true);
+        return (i < 0) ? -1 : rows [i];
+    } // getRow
+
+    /********************************************************************************
+     * Determine whether the hash table contains the given key.
+     * @param key  the key to look for
+     * @return  whether the key is present
+     */
+    public boolean containsKey (Object key)
+    {
+        return find (key, spread (key), false) >= 0;
+    } // containsKey
+
+    /********************************************************************************
+     * Put the key-value pair in the hash table, doubling the table first if the load
+     * factor would exceed its bound.
+     * @param key    the key to insert
+     * @param value  the value to insert
+     * @return  the old/previous value, null if none
+     */
+    @SuppressWarnings("unchecked")
+    public V put (K key, V value)
+    {
+        if (rowIndex) {
+            var oldR = putRow (key, (Integer) value);
+            return (oldR < 0) ? null : (V) Integer.valueOf (oldR);
+        } // if
+        var h = spread (key);
+        var i = find (key, h, false);
+        if (i >= 0) { var oldV = value (i); vals [i] = value; return oldV; }
+
+        if (keyCount >= limit) resize (2 * keys.length);
+        insert (key, value, 0, h);
+        keyCount++;
+        return null;
+    } // put
+
+    /********************************************************************************
+     * Put the key and its row id in a row index (without boxing the row id).
+     * @param key  the key to insert
+     * @param row  the row id (non-negative)
+     * @return  the old/previous row id, -1 if none
+     */
+    public int putRow (K key, int row)
+    {
+        if (! rowIndex) throw new UnsupportedOperationException ("OpenHashMap: putRow needs a row index");
+        var h = spread (key);
+        var i = find (key, h, false);
+        if (i >= 0) { var oldR = rows [i]; rows [i] = row; return oldR; }
+
+        if (keyCount >= limit) resize (2 * keys.length);
+        insert (key, null, row, h);
+        keyCount++;
+        return -1;
+    } // putRow
+
+    /********************************************************************************
+     * Remove the key (and its value) from the hash table.  The keys following it in
+     * its probe sequence are shifted back a slot, so no tombstones are left behind.
+     * @param key  the key to remove
+     * @return  the removed value, null if the key was not present
+     */
+    public V remove (Object key)
+    {
+        var i = find (key, spread (key), false);
+        if (i < 0) return null;
+        var oldV = value (i);
+
+        for (var j = (i + 1) & mask; keys [j] != null && dist (j) > 0; i = j, j = (j + 1) & mask) {
+            keys [i]   = keys [j];
+            hashes [i] = hashes [j];
+            if (rowIndex) rows [i] = rows [j]; else vals [i] = vals [j];
+        } // for
+        keys [i] = null;
+        if (! rowIndex) vals [i] = null;
+        keyCount--;
+        return oldV;
+    } // remove
+
+    /********************************************************************************
+     * Remove all the keys from the hash table (its capacity is kept).
+     */
+    public void clear ()
+    {
+        Arrays.fill (keys, null);
+        if (! rowIndex) Arrays.fill (vals, null);
+        keyCount = 0;
+    } // clear
+
+    /********************************************************************************
+     * Make room for at least the given number of keys without further doubling, e.g.,
+     * before the index of a table is built.
+     * @param n  the number of keys expected
+     */
+    public void ensureCapacity (int n)
+    {
+        if (n > limit) resize (tableSize ((int) Math.ceil (n / maxLoad)));
+    } // ensureCapacity
+
+    /********************************************************************************
+     * Print the hash table.
+     */
+    public void print ()
+    {
+        out.println ("OpenHashMap");
+        out.println ("-------------------------------------------");
+        for (var i = 0; i < keys.length; i++) {
+            if (keys [i] != null) out.println ("Slot [ " + i + " ] = " + keys [i] + " (distance " + dist (i) + ")");
+        } // for
+        out.println ("-------------------------------------------");
+    } // print
+
+    /********************************************************************************
+     * Return the size (number of keys) of the hash table.
+     * @return  the size of the hash table
+     */
+    public int size ()
+    {
+        return keyCount;
+    } // size
+
+    /********************************************************************************
+     * Return the number of slots probed by get since the count was last reset.
+     * Divided by the number of gets, it gives the average probe length.
+     * @return  the number of slots probed
+     */
+    public long getCount ()
+    {
+        return count;
+    } // getCount
+
+    /********************************************************************************
+     * Reset the count of slots probed.
+     */
+    public void resetCount ()
+    {
+        count = 0;
+    } // resetCount
+
+    /********************************************************************************
+     * Find the slot holding the key by probing from its home slot.  The probe stops
+     * at an empty slot or at a key closer to its own home slot than the probe has
+     * come, since Robin Hood insertion would have placed the key before it.
+     * @param key     the key to find
+     * @param h       the (spread) hash code of the key
+     * @param by_get  whether 'find' is called from 'get' (performance monitored)
+     * @return  the slot holding the key, or -1 if it is not present
+     */
+    private int find (Object key, int h, boolean by_get)
+    {
+        for (int i = h & mask, d = 0; ; i = (i + 1) & mask, d++) {
+            if (by_get) count++;
+            var k = keys [i];
+            if (k == null || dist (i) < d) return -1;
+            if (hashes [i] == h && k.equals (key)) return i;
+        } // for
+    } // find
+
+    /********************************************************************************
+     * Insert a key that is not in the table, swapping it with any key that is closer
+     * to its home slot than the key being placed (Robin Hood) and carrying that key
+     * on instead.  There must be a free slot.
+     * @param key    the key to insert
+     * @param value  the value to insert (unless a row index)
+     * @param row    the row id to insert (if a row index)
+     * @param h      the (spread) hash code of the key
+     */
+    private void insert (Object key, Object value, int row, int h)
+    {
+        for (int i = h & mask, d = 0; ; i = (i + 1) & mask, d++) {
+            if (keys [i] == null) {
+                keys [i]   = key;
+                hashes [i] = h;
+                if (rowIndex) rows [i] = row; else vals [i] = value;
+                return;
+            } // if
+            var di = dist (i);
+            if (di < d) {
+                var k = keys [i]; var hi = hashes [i];
+                keys [i] = key; hashes [i] = h;
+                key = k; h = hi; d = di;
+                if (rowIndex) { var r = rows [i]; rows [i] = row; row = r; }
+                else          { var v = vals [i]; vals [i] = value; value = v; }
+            } // if
+        } // for
+    } // insert
+
+    /********************************************************************************
+     * Return the value in slot i (a row id boxed for a row index).
+     * @param i  the slot
+     * @return  the value
+     */
+    @SuppressWarnings("unchecked")
+    private V value (int i)
+    {
+        return rowIndex ? (V) Integer.valueOf (rows [i]) : (V) vals [i];
+    } // value
+
+    /********************************************************************************
+     * Return the distance of the key in slot i from its home slot.
+     * @param i  the slot
+     * @return  the number of slots it was displaced
+     */
+    private int dist (int i)
+    {
+        return (i - (hashes [i] & mask)) & mask;
+    } // dist
+
+    /********************************************************************************
+     * Rehash all keys into a table with the given number of slots.
+     * @param n  the new number of slots (a power of two)
+     */
+    private void resize (int n)
+    {
+        var oldKeys = keys;
+        var oldVals = vals;
+        var oldRows = rows;
+        var oldHash = hashes;
+        allocate (n);
+        for (var i = 0; i < oldKeys.length; i++) {
+            if (oldKeys [i] == null) continue;
+            if (rowIndex) insert (oldKeys [i], null, oldRows [i], oldHash [i]);
+            else          insert (oldKeys [i], oldVals [i], 0, oldHash [i]);
+        } // for
+    } // resize
+
+    /********************************************************************************
+     * Allocate empty arrays with the given number of slots.
+     * @param n  the number of slots (a power of two)
+     */
+    private void allocate (int n)
+    {
+        keys   = new Object [n];
+        vals   = rowIndex ? null : new Object [n];
+        rows   = rowIndex ? new int [n] : null;
+        hashes = new int [n];
+        mask   = n - 1;
+        limit  = Math.min (n - 1, (int) (n * maxLoad));
+    } // allocate
+
+    /********************************************************************************
+     * Return the number of slots (a power of two, at least 2) for the given capacity.
+     * @param capacity  the capacity wanted
+     * @return  the table size
+     */
+    private static int tableSize (int capacity)
+    {
+        var n = 2;
+        while (n < capacity) n <<= 1;
+        return n;
+    } // tableSize
+
+    /********************************************************************************
+     * Hash the key, folding the high bits of its hash code into the low bits, which
+     * are the ones that select the home slot.
+     * @param key  the key to hash
+     * @return  the spread hash code
+     */
+    private static int spread (Object key)
+    {
+        var h = key.hashCode ();
+        return h ^ (h >>> 16);
+    } // spread
+
+    /********************************************************************************
+     * The main method used for testing.
+     * @param  the command-line arguments (args [0] gives number of keys to insert)
+     */
+    public static void main (String [] args)
+    {
+        var totalKeys = 40;
+        var RANDOMLY  = false;
+
+        OpenHashMap <Integer, Integer> ht = new OpenHashMap <> ();
+        if (args.length == 1) totalKeys = Integer.valueOf (args [0]);
+
+        if (RANDOMLY) {
+            var rng = new Random ();
+            for (var i = 1; i <= totalKeys; i += 2) ht.put (rng.nextInt (2 * totalKeys), i * i);
+        } else {
+            for (var i = 1; i <= totalKeys; i += 2) ht.put (i, i * i);
+        } // if
+
+        ht.print ();
+        for (var i = 0; i <= totalKeys; i++) {
+            out.println ("key = " + i + " value = " + ht.get (i));
+        } // for
+        out.println ("-------------------------------------------");
+        out.println ("Average number of slots probed = " + ht.count / (double) totalKeys);
+
+        for (var i = 1; i <= totalKeys; i += 4) ht.remove (i);
+        var found = 0;
+        for (var i = 1; i <= totalKeys; i += 2) if (ht.get (i) != null) found++;
+        out.println ("After removing every other key: size = " + ht.size () + ", found = " + found);
+    } // main
+
+} // OpenHashMap class
+
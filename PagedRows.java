@@ -0,0 +1,247 @@
+/*****************************************************************************************
+ * @file  PagedRows.java
+ *
+ * @author   John Miller
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/*****************************************************************************************
+ * The PagedRows class provides the tuples of a table file (see TableFile) as a list whose
+ * pages are read through a BufferPool, so a table larger than memory may be scanned with
+ * only the pool's frames in use.  A tuple is decoded from its page while the page is
+ * pinned.  Added tuples are written to the last page (or a new page at the end of the
+ * file) through the pool, and reach the file when the table is flushed.
+ */
+public class PagedRows
+       extends AbstractList <Comparable []>
+       implements RandomAccess
+{
+    /** The buffer pool the pages are read through
+     */
+    private final BufferPool pool;
+
+    /** The id of the table file in the pool
+     */
+    private final int fileId;
+
+    /** The header of the table file (kept up to date as tuples are added)
+     */
+    private final TableFile.Header h;
+
+    /** The number of tuples before each data page (built on first random access)
+     */
+    private int [] first;
+
+    /** Buffer for encoding added tuples
+     */
+    private ByteBuffer row = ByteBuffer.allocate (256);
+
+    /*************************************************************************************
+     * Construct a list of the tuples in a table file opened in the pool.
+     * @param _pool    the buffer pool
+     * @param _fileId  the id of the file in the pool
+     * @param _h       the file's header
+     */
+    PagedRows (BufferPool _pool, int _fileId, TableFile.Header _h)
+    {
+        pool   = _pool;
+        fileId = _fileId;
+        h      = _h;
+    } // constructor
+
+    /*************************************************************************************
+     * Open the given table file through the buffer pool, reading only its header.
+     * @param file  the table file
+     * @param pool  the buffer pool
+     * @return  the list of the file's tuples
+     */
+    public static PagedRows open (File file, BufferPool pool)
+           throws IOException
+    {
+        var id    = pool.open (file);
+        var first = pool.pin (id, 0);
+        var n     = TableFile.isTableFile (first) ? Math.max (1, first.getInt (10)) : 1;
+        pool.unpin (id, 0, false);
+        var head  = ByteBuffer.allocate (n * TableFile.PAGE);
+        for (var p = 0; p < n; p++) {
+            head.put (p * TableFile.PAGE, pool.pin (id, p), 0, TableFile.PAGE);
+            pool.unpin (id, p, false);
+        } // for
+        return new PagedRows (pool, id, TableFile.readHeader (head));
+    } // open
+
+    /*************************************************************************************
+     * Return the header of the table file.
+     * @return  the header
+     */
+    public TableFile.Header header ()
+    {
+        return h;
+    } // header
+
+    /*************************************************************************************
+     * Return the i-th tuple, decoding it from its page.
+     * @param i  the tuple's position
+     * @return  the tuple
+     */
+    public Comparable [] get (int i)
+    {
+        if (i < 0 || i >= size ()) throw new IndexOutOfBoundsException (i);
+        if (first == null) countRows ();
+        var p = Arrays.binarySearch (first, i);
+        if (p < 0) p = -p - 2;                                               // page holding tuple i
+        var fp = h.headerPages + p;
+        try {
+            var buf = pool.pin (fileId, fp);
+            try {
+                return TableFile.decodeRow (buf, 0, i - first [p], h.domain);
+            } finally {
+                pool.unpin (fileId, fp, false);
+            } // try
+        } catch (IOException ex) {
+            throw new UncheckedIOException (ex);
+        } // try
+    } // get
+
+    /*************************************************************************************
+     * Return the number of tuples.
+     * @return  the size of the list
+     */
+    public int size ()
+    {
+        return h.nTuples;
+    } // size
+
+    /*************************************************************************************
+     * Add a tuple to the last page, or to a new page if it does not fit.
+     * @param t  the tuple to add
+     * @return  true
+     */
+    public boolean add (Comparable [] t)
+    {
+        row = TableFile.encodeRow (row, t, h.domain);
+        if (row.remaining () + 4 > TableFile.PAGE) throw new IllegalArgumentException ("PagedRows: tuple too large for a page");
+        try {
+            var added = false;
+            if (h.nPages > 0) {
+                var fp   = h.headerPages + h.nPages - 1;
+                var page = pool.pin (fileId, fp);
+                page.putShort (0, (short) h.lastRows);                       // drop tuples the header does not count
+                added = TableFile.addRow (page, row);
+                pool.unpin (fileId, fp, true);
+            } // if
+            if (! added) {
+                var fp   = h.headerPages + h.nPages;                        // new page
+                var page = pool.pin (fileId, fp);
+                page.putShort (0, (short) 0);
+                TableFile.addRow (page, row);
+                pool.unpin (fileId, fp, true);
+                h.nPages++;
+                h.lastRows = 0;
+                if (first != null) {
+                    first = Arrays.copyOf (first, h.nPages + 1);
+                    first [h.nPages] = first [h.nPages - 1];
+                } // if
+            } // if
+        } catch (IOException ex) {
+            throw new UncheckedIOException (ex);
+        } // try
+        h.nTuples++;
+        h.lastRows++;
+        if (first != null) first [h.nPages]++;
+        return true;
+    } // add
+
+    /*************************************************************************************
+     * Return an iterator that decodes the tuples a page at a time, pinning each page only
+     * while its tuples are decoded.
+     * @return  an iterator over the tuples
+     */
+    public Iterator <Comparable []> iterator ()
+    {
+        return new Iterator <> () {
+            int p = 0, k = 0;
+            Comparable [][] onPage = new Comparable [0][];
+
+            public boolean hasNext ()
+            {
+                while (k >= onPage.length && p < h.nPages) readPage ();
+                return k < onPage.length;
+            } // hasNext
+
+            public Comparable [] next ()
+            {
+                if (! hasNext ()) throw new NoSuchElementException ();
+                return onPage [k++];
+            } // next
+
+            private void readPage ()
+            {
+                var fp = h.headerPages + p++;
+                try {
+                    var buf = pool.pin (fileId, fp);
+                    try {
+                        onPage = new Comparable [h.rows (buf, 0, p - 1)][];
+                        for (var j = 0; j < onPage.length; j++) onPage [j] = TableFile.decodeRow (buf, 0, j, h.domain);
+                    } finally {
+                        pool.unpin (fileId, fp, false);
+                    } // try
+                } catch (IOException ex) {
+                    throw new UncheckedIOException (ex);
+                } // try
+                k = 0;
+            } // readPage
+        }; // Iterator
+    } // iterator
+
+    /*************************************************************************************
+     * Write the modified pages back to the file, followed by the header, which takes the
+     * schema and options from the given header and the page and tuple counts from this
+     * list.  The checksum of the data pages is recomputed from all of them, so each page
+     * is read through the pool.
+     * @param h2  the header describing the table
+     */
+    public void flush (TableFile.Header h2)
+           throws IOException
+    {
+        h.encoded = h2.encoded;
+        h.indexed = h2.indexed;
+        h.mapType = h2.mapType;
+        pool.flush (fileId);
+        var crc = new CRC32 ();
+        for (var p = 0; p < h.nPages; p++) {
+            var fp = h.headerPages + p;
+            crc.update (pool.pin (fileId, fp).duplicate ().clear ());
+            pool.unpin (fileId, fp, false);
+        } // for
+        h.checksum = (int) crc.getValue ();
+        TableFile.writeHeader (pool.channel (fileId), h);
+        pool.channel (fileId).force (true);
+    } // flush
+
+    /*************************************************************************************
+     * Count the tuples on each page to locate tuples by position.
+     */
+    private void countRows ()
+    {
+        var f = new int [h.nPages + 1];
+        try {
+            for (var p = 0; p < h.nPages; p++) {
+                var fp = h.headerPages + p;
+                f [p + 1] = f [p] + h.rows (pool.pin (fileId, fp), 0, p);
+                pool.unpin (fileId, fp, false);
+            } // for
+        } catch (IOException ex) {
+            throw new UncheckedIOException (ex);
+        } // try
+        first = f;
+    } // countRows
+
+} // PagedRows class
+
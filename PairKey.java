@@ -0,0 +1,92 @@
+/*****************************************************************************************
+ * @file  PairKey.java
+ *
+ * @author   John Miller
+ */
+
+import java.util.Objects;
+
+/*****************************************************************************************
+ * The PairKey class provides a key for a two-attribute composite key (e.g., title and
+ * year) that holds the two values in fields rather than an array, and compares each value
+ * once.  Null values sort first, as for KeyType.
+ */
+public final class PairKey
+       extends KeyType
+{
+    /** The first and second attribute values of the key
+     */
+    private final Comparable v0, v1;
+
+    /** The hash code of the key (computed at construction)
+     */
+    private final int hash;
+
+    /*************************************************************************************
+     * Construct a key for the given pair of values.
+     * @param _v0  the first attribute value
+     * @param _v1  the second attribute value
+     */
+    public PairKey (Comparable _v0, Comparable _v1)
+    {
+        v0   = _v0;
+        v1   = _v1;
+        hash = mix (combine (combine (0, v0), v1));
+    } // constructor
+
+    /*************************************************************************************
+     * Return the number of attribute values in the key.
+     * @return  2
+     */
+    public int arity ()
+    {
+        return 2;
+    } // arity
+
+    /*************************************************************************************
+     * Return the j-th attribute value of the key.
+     * @param j  the position of the attribute within the key
+     * @return  the attribute value
+     */
+    public Comparable get (int j)
+    {
+        return switch (j) {
+            case 0  -> v0;
+            case 1  -> v1;
+            default -> throw new IndexOutOfBoundsException (j);
+        }; // switch
+    } // get
+
+    /*************************************************************************************
+     * Compare two keys, directly when the other key is also a PairKey (nulls first).
+     * @param k  the other key (to compare with this)
+     * @return  resultant integer that's negative, zero or positive
+     */
+    public int compareTo (KeyType k)
+    {
+        if (! (k instanceof PairKey pk)) return super.compareTo (k);
+        var c = compare (v0, pk.v0);
+        return (c != 0) ? c : compare (v1, pk.v1);
+    } // compareTo
+
+    /*************************************************************************************
+     * Determine whether two keys are equal.
+     * @param k  the other key (to compare with this)
+     * @return  true if equal, false otherwise
+     */
+    public boolean equals (Object k)
+    {
+        return (k instanceof PairKey pk) ? Objects.equals (v0, pk.v0) && Objects.equals (v1, pk.v1) : super.equals (k);
+    } // equals
+
+    /*************************************************************************************
+     * Return the hash code for this key (the same as for a KeyType holding the two values).
+     * @return  an integer hash code value
+     */
+    public int hashCode ()
+    {
+        return hash;
+    } // hashCode
+
+} // PairKey class
+
@@ -9,6 +9,7 @@ import java.io.*;
 import java.util.*;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.lang.System.arraycopy;
 import static java.lang.System.out;
@@ -30,6 +31,10 @@ public class Table
      */
     private static final String EXT = ".dbf";
 
+    /** Filename extension for index files (see IndexFile)
+     */
+    private static final String IDX = ".idx";
+
     /** Counter for naming temporary tables.
      */
     private static int count = 0;
@@ -57,27 +62,95 @@ public class Table
      */
     private final String [] key;
 
-    /** Index into tuples (maps key to tuple number).
+    /** The map type used for this table's index (see MapType).
+     */
+    private MapType mType;
+
+    /** Index into tuples (maps key to tuple number, i.e., the row id of the tuple).
+     */
+    private Map <KeyType, Integer> index;
+
+    /** Secondary indices on non-key attributes (maps attribute list to an index from
+     *  attribute values to the row ids of the tuples having them, in row order).
+     */
+    private final Map <String, Map <KeyType, List <Integer>>> secondary = new HashMap <> ();
+
+    /** Definitions ("attributes:MapType") of the secondary indices of a table read from
+     *  its file that are yet to be read or built, or null once its indices are (see map).
+     */
+    private String [] deferred;
+
+    /** The stamp of the table file this table was read from (see IndexFile.stamp)
+     */
+    private transient int stamp;
+
+    /** The write-ahead log of this table's inserts, or null if they are not logged
+     */
+    private transient WriteAheadLog wal;
+
+    /** Dictionaries for the dictionary encoded attributes of a row layout table, indexed
+     *  by column (null when the column is not encoded).
+     */
+    private Dictionary [] dict;
+
+    /** Codes of the dictionary encoded attributes, parallel to tuples (-1 for null).
      */
-    private final Map <KeyType, Comparable []> index;
+    private int [][] code;
 
-    /** The supported map types.
+    /** Maximum number of build-side tuples an in-memory hash join may hold (see h_join).
      */
-    private enum MapType { NO_MAP, TREE_MAP, LINHASH_MAP, BPTREE_MAP }
+    private static int joinBudget = 1_000_000;
 
-    /** The map type to be used for indices.  Change as needed.
+    /** Filename extension for the partition files written when a hash join spills
      */
-    private static final MapType mType = MapType.TREE_MAP;
+    private static final String SPILL = ".spill";
+
+    /** Maximum number of partitioning passes of a hash join that spills (see graceJoin)
+     */
+    private static final int MAX_PASSES = 3;
+
+    /** Filename extension for write-ahead log files
+     */
+    private static final String LOG = ".wal";
+
+    /** The supported map types (OPEN_MAP is an open addressing hash map for point lookups).
+     */
+    public enum MapType { NO_MAP, TREE_MAP, LINHASH_MAP, BPTREE_MAP, OPEN_MAP }
+
+    /** The supported storage layouts: a list of tuple arrays (ROW) or a ColumnStore
+     *  holding each attribute in a primitive array (COLUMN).
+     */
+    public enum Layout { ROW, COLUMN }
+
+    /** The map type used for indices of tables that do not specify one.
+     */
+    private static final MapType DEFAULT_MAP = MapType.TREE_MAP;
+
+    /************************************************************************************
+     * Make a map (index) from keys to row ids given the MapType.  An OPEN_MAP index keeps
+     * the row ids in an int array.
+     *
+     * @param mType  the type of map to make
+     */
+    private static Map <KeyType, Integer> makeMap (MapType mType)
+    {
+        if (mType == MapType.OPEN_MAP) return OpenHashMap.forRows ();
+        return makeMap (mType, Integer.class);
+    } // makeMap
 
     /************************************************************************************
-     * Make a map (index) given the MapType.
+     * Make a map (index) with values of the given class given the MapType.
+     *
+     * @param mType   the type of map to make
+     * @param classV  the class for the map's values
      */
-    private static Map <KeyType, Comparable []> makeMap ()
+    private static <V> Map <KeyType, V> makeMap (MapType mType, Class <V> classV)
     {
         return switch (mType) {
         case TREE_MAP    -> new TreeMap <> ();
-        case LINHASH_MAP -> new LinHashMap <> (KeyType.class, Comparable [].class);
-//      case BPTREE_MAP  -> new BpTreeMap <> (KeyType.class, Comparable [].class);
+        case LINHASH_MAP -> new LinHashMap <> (KeyType.class, classV);
+        case BPTREE_MAP  -> new BpTreeMap <> (KeyType.class, classV);
+        case OPEN_MAP    -> new OpenHashMap <> ();
         default          -> null;
         }; // switch
     } // makeMap
@@ -110,18 +183,50 @@ public class Table
      * @param _attribute  the string containing attributes names
      * @param _domain     the string containing attribute domains (data types)
      * @param _key        the primary key
+     * @param _mType      the type of map to use for the index
+     * @param _layout     the storage layout for the tuples
      */  
-    public Table (String _name, String [] _attribute, Class [] _domain, String [] _key)
+    public Table (String _name, String [] _attribute, Class [] _domain, String [] _key, MapType _mType,
+                  Layout _layout)
     {
         name      = _name;
         attribute = _attribute;
         domain    = _domain;
         key       = _key;
-        tuples    = new ArrayList <> ();
-        index     = makeMap ();
+        tuples    = (_layout == Layout.COLUMN) ? new ColumnStore (_domain) : new ArrayList <> ();
+        mType     = _mType;
+        index     = makeMap (mType);
 
     } // primary constructor
 
+    /************************************************************************************
+     * Construct an empty table with row storage from the meta-data specifications.
+     *
+     * @param _name       the name of the relation
+     * @param _attribute  the string containing attributes names
+     * @param _domain     the string containing attribute domains (data types)
+     * @param _key        the primary key
+     * @param _mType      the type of map to use for the index
+     */  
+    public Table (String _name, String [] _attribute, Class [] _domain, String [] _key, MapType _mType)
+    {
+        this (_name, _attribute, _domain, _key, _mType, Layout.ROW);
+    } // constructor
+
+    /************************************************************************************
+     * Construct an empty table from the meta-data specifications, using the default
+     * map type for its index.
+     *
+     * @param _name       the name of the relation
+     * @param _attribute  the string containing attributes names
+     * @param _domain     the string containing attribute domains (data types)
+     * @param _key        the primary key
+     */  
+    public Table (String _name, String [] _attribute, Class [] _domain, String [] _key)
+    {
+        this (_name, _attribute, _domain, _key, DEFAULT_MAP);
+    } // constructor
+
     /************************************************************************************
      * Construct a table from the meta-data specifications and data in _tuples list.
      *
@@ -139,7 +244,8 @@ public class Table
         domain    = _domain;
         key       = _key;
         tuples    = _tuples;
-        index     = makeMap ();
+        mType     = DEFAULT_MAP;
+        index     = makeMap (mType);
     } // constructor
 
     /*
@@ -153,9 +259,50 @@ public class Table
      */
     public Table (String _name, String attributes, String domains, String _key)
     {
-        this (_name, attributes.split (" "), findClass (domains.split (" ")), _key.split(" "));
+        this (_name, attributes, domains, _key, DEFAULT_MAP);
+    } // constructor
+
+    /*
+    ***********************************************************************************
+     * Construct an empty table from the raw string specifications, using the given type
+     * of map for its index.
+     *
+     * #usage new Table ("movieExec", "certNo name address fee", "Integer String String Float",
+     *                   "certNo", Table.MapType.LINHASH_MAP)
+     *
+     * @param _name       the name of the relation
+     * @param attributes  the string containing attributes names
+     * @param domains     the string containing attribute domains (data types)
+     * @param _key        the primary key
+     * @param _mType      the type of map to use for the index
+     */
+    public Table (String _name, String attributes, String domains, String _key, MapType _mType)
+    {
+        this (_name, attributes, domains, _key, _mType, Layout.ROW);
+    } // constructor
+
+    /*
+    ***********************************************************************************
+     * Construct an empty table from the raw string specifications, using the given type
+     * of map for its index and the given storage layout for its tuples.
+     *
+     * #usage new Table ("movie", "title year length genre studioName producerNo",
+     *                   "String Integer Integer String String Integer", "title year",
+     *                   Table.MapType.TREE_MAP, Table.Layout.COLUMN)
+     *
+     * @param _name       the name of the relation
+     * @param attributes  the string containing attributes names
+     * @param domains     the string containing attribute domains (data types)
+     * @param _key        the primary key
+     * @param _mType      the type of map to use for the index
+     * @param _layout     the storage layout for the tuples
+     */
+    public Table (String _name, String attributes, String domains, String _key, MapType _mType,
+                  Layout _layout)
+    {
+        this (_name, attributes.split (" "), findClass (domains.split (" ")), _key.split(" "), _mType, _layout);
 
-        out.println ("DDL> create table " + name + " (" + attributes + ")");
+        if (Log.isOn (Log.Level.INFO)) Log.info ("DDL> create table " + name + " (" + attributes + ") using " + mType + ", " + _layout);
     } // constructor
 
     //----------------------------------------------------------------------------------
@@ -165,7 +312,9 @@ public class Table
     /*
     ***********************************************************************************
      * Project the tuples onto a lower dimension by keeping only the given attributes.
-     * Check whether the original key is included in the projection.
+     * Check whether the original key is included in the projection.  If so the projected
+     * tuples are already distinct, otherwise duplicates are removed using a hash set of
+     * the projected values.
      *
      * #usage movie.project ("title year studioNo")
      *
@@ -174,30 +323,32 @@ public class Table
      */
     public Table project (String attributes)
     {
-        out.println ("RA> " + name + ".project (" + attributes + ")");
+        if (Log.isOn (Log.Level.INFO)) Log.info ("RA> " + name + ".project (" + attributes + ")");
         var attrs     = attributes.split (" ");
         var colDomain = extractDom (match (attrs), domain);
-        var newKey    = (Arrays.asList (attrs).containsAll (Arrays.asList (key))) ? key : attrs;
-
-        List <Comparable []> rows = new ArrayList <> ();
-
-        //  T O   B E   I M P L E M E N T E D
-        for(int i = 0; i < tuples.size(); i++){
-            Comparable [] array = new Comparable[attrs.length];
-            for(int j = 0; j < attrs.length; j++){
-                int attrPos = col(attrs[j]);
-                array[j] = tuples.get(i)[attrPos];
-            }
-            rows.add(array);
-        }
-        for(int x = 0; x < rows.size(); x++){
-            for(int y = x+1; y < rows.size()-1; y++){
-                if(rows.get(x).equals(rows.get(y))){
-                    rows.remove(y);
-                    x -= 1;
-                }
-            }
-        }
+        var hasKey    = Arrays.asList (attrs).containsAll (Arrays.asList (key));
+        var newKey    = hasKey ? key : attrs;
+
+        List <Comparable []> rows;
+
+        var cols = match (attrs);
+        var seen = hasKey ? null : new HashSet <KeyType> ();                 // no dedup needed with key
+        if (tuples instanceof ColumnStore cs) {
+            var proj = cs.project (cols);                                    // column at a time
+            if (seen != null) {
+                var keep = new int [proj.size ()];
+                var m    = 0;
+                for (var i = 0; i < proj.size (); i++) if (seen.add (KeyType.of (proj.get (i)))) keep [m++] = i;
+                if (m < proj.size ()) proj = proj.gather (Arrays.copyOf (keep, m));
+            } // if
+            rows = proj;
+        } else {
+            rows = new ArrayList <> (tuples.size ());
+            for (var t : tuples) {
+                var row = extract (t, cols);
+                if (seen == null || seen.add (KeyType.of (row))) rows.add (row);
+            } // for
+        } // if
 
         return new Table (name + count++, attrs, colDomain, newKey, rows);
     } // project
@@ -212,7 +363,7 @@ public class Table
      */
     public Table select (Predicate <Comparable []> predicate)
     {
-        out.println ("RA> " + name + ".select (" + predicate + ")");
+        if (Log.isOn (Log.Level.INFO)) Log.info ("RA> " + name + ".select (" + predicate + ")");
 
         return new Table (name + count++, attribute, domain, key,
                    tuples.stream ().filter (t -> predicate.test (t))
@@ -221,29 +372,156 @@ public class Table
 
     /************************************************************************************
      * Select the tuples satisfying the given key predicate (key = value).  Use an index
-     * (Map) to retrieve the tuple with the given key value.
+     * (Map) to retrieve the tuple with the given key value.  The lookup itself allocates
+     * nothing for an IntKey (or LongKey); only the result table is allocated.
      *
      * @param keyVal  the given key value
      * @return  a table with the tuple satisfying the key predicate
      */
     public Table select (KeyType keyVal)
     {
-        out.println ("RA> " + name + ".select (" + keyVal + ")");
+        if (Log.isOn (Log.Level.INFO)) Log.info ("RA> " + name + ".select (" + keyVal + ")");
 
-        List <Comparable []> rows = new ArrayList <> ();
+        List <Comparable []> rows;
+        if (indexed ()) {                                                    // one probe, no key set
+            var r = rowOf (keyVal);
+            rows = new ArrayList <> (1);
+            if (r >= 0) rows.add (tuples.get (r));
+        } else {
+            rows = selectKeys (List.of (keyVal));
+        } // if
 
-        //  T O   B E   I M P L E M E N T E D 
-        for(int i = 0; i < tuples.size(); i++){
-            if(tuples.get(i).equals(index.get(keyVal))){
-                rows.add(tuples.get(i));
-            }
-        }
+        return new Table (name + count++, attribute, domain, key, rows);
+    } // select
+
+    /************************************************************************************
+     * Select the tuples whose key is any of the given key values (multi-get).  Use an
+     * index (Map) to retrieve each tuple with a single lookup.
+     *
+     * #usage movieStar.select (List.of (new KeyType ("Carrie_Fisher"), new KeyType ("Mark_Hamill")))
+     *
+     * @param keyVals  the given key values
+     * @return  a table with the tuples satisfying the key predicates
+     */
+    public Table select (Collection <KeyType> keyVals)
+    {
+        if (Log.isOn (Log.Level.INFO)) Log.info ("RA> " + name + ".select (" + keyVals + ")");
+
+        return new Table (name + count++, attribute, domain, key, selectKeys (keyVals));
+    } // select
+
+    /************************************************************************************
+     * Select the tuples whose key lies in the range from low to high, where each bound
+     * is inclusive or exclusive as given and a null bound is unbounded.  An ordered index
+     * (TREE_MAP or BPTREE_MAP) returns just the qualifying slice, otherwise the tuples
+     * are scanned.
+     *
+     * #usage movieStar.select (new KeyType ("C"), true, new KeyType ("I"), false)
+     *
+     * @param low      the low key value (null for none)
+     * @param lowInc   whether the low key value is included
+     * @param high     the high key value (null for none)
+     * @param highInc  whether the high key value is included
+     * @return  a table with the tuples whose key is in the range
+     */
+    public Table select (KeyType low, boolean lowInc, KeyType high, boolean highInc)
+    {
+        if (Log.isOn (Log.Level.INFO)) {
+            Log.info ("RA> " + name + ".select (" + low + (lowInc ? " <= " : " < ") + "key"
+                                                     + (highInc ? " <= " : " < ") + high + ")");
+        } // if
+
+        List <Comparable []> rows;
+        var slice = indexed () ? range (low, lowInc, high, highInc) : null;
+
+        if (slice != null) {
+            rows = slice;
+        } else {
+            rows = new ArrayList <> ();
+            var cols = match (key);
+            for (var t : tuples) {
+                var k = keyOf (t, cols);
+                if (low != null) { var c = k.compareTo (low); if (c < 0 || c == 0 && ! lowInc) continue; }
+                if (high != null) { var c = k.compareTo (high); if (c > 0 || c == 0 && ! highInc) continue; }
+                rows.add (t);
+            } // for
+        } // if
+
+        return new Table (name + count++, attribute, domain, key, rows);
+    } // select
+
+    /************************************************************************************
+     * Select the tuples whose values for the given attributes equal the given values.
+     * Use the primary index when the attributes are the key, a secondary index on the
+     * attributes if one exists, otherwise scan the tuples.  A null value matches only
+     * null values.  Values not of their attribute's domain are rejected.
+     *
+     * #usage movie.select ("genre", new KeyType ("sciFi"))
+     *
+     * @param attributes  the attributes to compare
+     * @param vals        the values the attributes must equal
+     * @return  a table with the tuples satisfying the equality predicate, or null if the
+     *          values do not fit the attributes
+     */
+    public Table select (String attributes, KeyType vals)
+    {
+        if (Log.isOn (Log.Level.INFO)) Log.info ("RA> " + name + ".select (" + attributes + " = " + vals + ")");
+
+        List <Comparable []> rows;
+        var attrs = attributes.split (" ");
+        var cols  = match (attrs);
+        if (vals.arity () != cols.length) {
+            Log.error ("select ERROR: " + cols.length + " attributes but " + vals.arity () + " values");
+            return null;
+        } // if
+        for (var j = 0; j < cols.length; j++) {
+            var v = vals.get (j);
+            if (v != null && ! domain [cols [j]].isInstance (v)) {
+                Log.error ("select ERROR: " + attrs [j] + " = " + v + " is not a " + domain [cols [j]].getSimpleName ());
+                return null;
+            } // if
+        } // for
+        var six = secondaryIndex (attrs);
+
+        if (Arrays.equals (attrs, key)) {
+            rows = selectKeys (List.of (vals));
+        } else if (six != null) {
+            rows = rowsAt (six.getOrDefault (vals, List.of ()));
+        } else if (tuples instanceof ColumnStore cs) {
+            int [] sel = null;                                               // filter column at a time
+            for (var j = 0; j < cols.length; j++) {
+                var v = vals.get (j);
+                sel = (v == null) ? cs.filterNull (sel, cols [j]) : cs.filter (sel, cols [j], v, true, v, true);
+            } // for
+            rows = cs.gather (sel);
+        } else {
+            rows = new ArrayList <> ();
+            var cds    = new int [cols.length][];                            // codes of encoded attributes
+            var want   = new int [cols.length];                              // the code each must equal
+            var absent = false;                                              // value not in dictionary
+            for (var j = 0; j < cols.length; j++) {
+                cds [j] = codes (cols [j]);
+                if (cds [j] == null) continue;
+                want [j] = (vals.get (j) == null) ? -1 : dict [cols [j]].lookup (vals.get (j));  // -1 codes null
+                if (want [j] < 0 && vals.get (j) != null) absent = true;
+            } // for
+            scan:
+            for (var i = 0; ! absent && i < tuples.size (); i++) {
+                for (var j = 0; j < cols.length; j++) if (cds [j] != null && cds [j][i] != want [j]) continue scan;
+                var t = tuples.get (i);
+                for (var j = 0; j < cols.length; j++) {
+                    if (cds [j] == null && ! Objects.equals (vals.get (j), t [cols [j]])) continue scan;
+                } // for
+                rows.add (t);
+            } // for
+        } // if
 
         return new Table (name + count++, attribute, domain, key, rows);
     } // select
 
     /************************************************************************************
-     * Union this table and table2.  Check that the two tables are compatible.
+     * Union this table and table2.  Check that the two tables are compatible.  Tuples of
+     * table2 that are (value) equal to a tuple of this table are not repeated.
      *
      * #usage movie.union (show)
      *
@@ -252,28 +530,13 @@ public class Table
      */
     public Table union (Table table2)
     {
-        out.println ("RA> " + name + ".union (" + table2.name + ")");
+        if (Log.isOn (Log.Level.INFO)) Log.info ("RA> " + name + ".union (" + table2.name + ")");
         if (! compatible (table2)) return null;
 
-        List <Comparable []> rows = new ArrayList <> ();
-
-        //  T O   B E   I M P L E M E N T E D
-        boolean copyRow=true;
-
-        //Adding all rows from table 1.
-        for (Comparable[] tup1 : tuples) {
-            rows.add(tup1);
-        }
+        List <Comparable []> rows = new ArrayList <> (tuples);
 
-        for( int i=0; i<table2.tuples.size() ; i++) {
-            //check if tuple is already in table 1
-            for (int j = 0; j < tuples.size(); j++) {
-                if (tuples.get(j)==table2.tuples.get(i)) {copyRow=false;}
-            }
-            //add row to table 1 if there is no duplicate
-            if(copyRow){ rows.add(table2.tuples.get(i)); }
-            else{ copyRow=true; } //reset
-        }
+        var inThis = contains ();
+        for (var u : table2.tuples) if (! inThis.test (u)) rows.add (u);
 
         return new Table (name + count++, attribute, domain, key, rows);
     } // union
@@ -289,27 +552,38 @@ public class Table
      */
     public Table minus (Table table2)
     {
-        out.println ("RA> " + name + ".minus (" + table2.name + ")");
+        if (Log.isOn (Log.Level.INFO)) Log.info ("RA> " + name + ".minus (" + table2.name + ")");
         if (! compatible (table2)) return null;
 
         List <Comparable []> rows = new ArrayList <> ();
 
-        //  T O   B E   I M P L E M E N T E D 
-        boolean copyRow=true;
-
-        for( int i=0; i<tuples.size() ; i++) {
-            //check if tuple is in table 2
-            for (int j = 0; j < table2.tuples.size(); j++) {
-                if (tuples.get(i)==table2.tuples.get(j)) {copyRow=false;}
-            }
-            //add row to new table row if tuple exists in both tables
-            if(copyRow){ rows.add(tuples.get(i)); }
-            else{ copyRow=true; }
-        }
+        var inTable2 = table2.contains ();
+        for (var t : tuples) if (! inTable2.test (t)) rows.add (t);
 
         return new Table (name + count++, attribute, domain, key, rows);
     } // minus
 
+    /************************************************************************************
+     * Intersect this table and table2.  Check that the two tables are compatible.
+     *
+     * #usage movie.intersect (show)
+     *
+     * @param table2  The rhs table in the intersect operation
+     * @return  a table representing the intersection
+     */
+    public Table intersect (Table table2)
+    {
+        if (Log.isOn (Log.Level.INFO)) Log.info ("RA> " + name + ".intersect (" + table2.name + ")");
+        if (! compatible (table2)) return null;
+
+        List <Comparable []> rows = new ArrayList <> ();
+
+        var inTable2 = table2.contains ();
+        for (var t : tuples) if (inTable2.test (t)) rows.add (t);
+
+        return new Table (name + count++, attribute, domain, key, rows);
+    } // intersect
+
     /************************************************************************************
      * Join this table and table2 by performing an "equi-join".  Tuples from both tables
      * are compared requiring attributes1 to equal attributes2.  Disambiguate attribute
@@ -325,8 +599,10 @@ public class Table
      */
     public Table join (String attributes1, String attributes2, Table table2)
     {
-        out.println ("RA> " + name + ".join (" + attributes1 + ", " + attributes2 + ", "
-                                               + table2.name + ")");
+        if (Log.isOn (Log.Level.INFO)) {
+            Log.info ("RA> " + name + ".join (" + attributes1 + ", " + attributes2 + ", "
+                                                   + table2.name + ")");
+        } // if
 
         var t_attrs = attributes1.split (" ");
         var u_attrs = attributes2.split (" ");
@@ -348,9 +624,9 @@ public class Table
             String d1 = domain[t_attrsPos[i]].getName();
             String d2 = table2.domain[u_attrsPos[i]].getName();
             if ( ! d1.equals(d2)) {
-                out.println("The domain of attribute " + attribute[t_attrsPos[i]] + " is " + d1);
-                out.println("The domain of attribute " + table2.attribute[u_attrsPos[i]] + " is " + d2);
-                out.println("These domain dont match!");
+                Log.error ("The domain of attribute " + attribute[t_attrsPos[i]] + " is " + d1);
+                Log.error ("The domain of attribute " + table2.attribute[u_attrsPos[i]] + " is " + d2);
+                Log.error ("These domain dont match!");
                 return null;
             }
         }
@@ -363,7 +639,7 @@ public class Table
                 int match = 0;
 
                 for(int k = 0; k < t_attrs.length; k++) {
-                    if( tup1[t_attrsPos[k]] == tup2[u_attrsPos[k]]) {match++;}
+                    if( tup1[t_attrsPos[k]].equals (tup2[u_attrsPos[k]])) {match++;}
                 }
 
                 if(match == t_attrs.length) {
@@ -375,23 +651,18 @@ public class Table
             }
         }
 
-        String[] newAttr = table2.attribute;
-        for(int i = 0; i < attribute.length; i++) {
-            for(int j = 0; j < table2.attribute.length; j++) {
-                if(attribute[i].equals(table2.attribute[j])){
-                    newAttr[j] = table2.attribute[j] + "2";
-                }
-            }
-
-        }
-
-        return new Table (name + count++, concat (attribute, table2.attribute),
+        return new Table (name + count++, concat (attribute, disambiguate (table2)),
                                           concat (domain, table2.domain), key, rows);
     } // join
 
     /************************************************************************************
      * Join this table and table2 by performing an "equi-join".  Same as above, but implemented
-     * using an Index Join algorithm.
+     * using an Index Join algorithm.  When attributes2 is table2's primary key, each tuple
+     * of this table probes table2's index once.  Otherwise table2's secondary index on
+     * attributes2 is probed, building a transient one for the duration of the join if
+     * table2 has none.
+     *
+     * #usage starsIn.i_join ("movieTitle movieYear", "title year", movie)
      *
      * @param attribute1  the attributes of this table to be compared (Foreign Key)
      * @param attribute2  the attributes of table2 to be compared (Primary Key)
@@ -400,12 +671,50 @@ public class Table
      */
     public Table i_join (String attributes1, String attributes2, Table table2)
     {
-        return null;
+        if (Log.isOn (Log.Level.INFO)) {
+            Log.info ("RA> " + name + ".i_join (" + attributes1 + ", " + attributes2 + ", "
+                                                     + table2.name + ")");
+        } // if
+
+        var t_attrs = attributes1.split (" ");
+        var u_attrs = attributes2.split (" ");
+        if (! joinable (t_attrs, u_attrs, table2)) return null;
+
+        var rows   = new ArrayList <Comparable []> ();
+        var keyPos = table2.keyOrder (u_attrs);
+
+        if (keyPos != null && table2.indexed ()) {
+            var t_cols = new int [keyPos.length];                             // lhs columns in key order
+            for (var j = 0; j < keyPos.length; j++) t_cols [j] = col (t_attrs [keyPos [j]]);
+            var probe = probeFor (t_cols);
+            for (var t : tuples) {
+                var r = table2.rowOf (probeOf (probe, t, t_cols));
+                if (r >= 0) rows.add (concat (t, table2.tuples.get (r)));
+            } // for
+        } else {
+            var t_cols = match (t_attrs);
+            var six    = table2.secondaryIndex (u_attrs);                      // secondary index, or
+            if (six != null) {
+                for (var t : tuples) table2.probeIndex (six, t, t_cols, rows);
+            } else {
+                var ht = buildHash (table2.tuples, table2.match (u_attrs));    // transient index
+                for (var t : tuples) probeHash (ht, t, t_cols, false, rows);
+            } // if
+        } // if
+
+        return new Table (name + count++, concat (attribute, disambiguate (table2)),
+                                          concat (domain, table2.domain), key, rows);
     } // i_join
 
     /************************************************************************************
      * Join this table and table2 by performing an "equi-join".  Same as above, but implemented
-     * using a Hash Join algorithm.
+     * using a Hash Join algorithm.  The hash table is built on the smaller input and probed
+     * with the larger one.  When the build side exceeds the join budget, both inputs are
+     * partitioned to the storage directory and joined one partition at a time.  If table2
+     * has a secondary index on attributes2, it is used as the hash table instead.  A join
+     * on a single dictionary encoded attribute of both tables compares integer codes.
+     *
+     * #usage movie.h_join ("studioName", "name", studio)
      *
      * @param attribute1  the attributes of this table to be compared (Foreign Key)
      * @param attribute2  the attributes of table2 to be compared (Primary Key)
@@ -414,12 +723,97 @@ public class Table
      */
     public Table h_join (String attributes1, String attributes2, Table table2)
     {
+        if (Log.isOn (Log.Level.INFO)) {
+            Log.info ("RA> " + name + ".h_join (" + attributes1 + ", " + attributes2 + ", "
+                                                     + table2.name + ")");
+        } // if
 
-        //  D O   N O T   I M P L E M E N T
+        var t_attrs = attributes1.split (" ");
+        var u_attrs = attributes2.split (" ");
+        if (! joinable (t_attrs, u_attrs, table2)) return null;
+
+        var t_cols    = match (t_attrs);
+        var u_cols    = table2.match (u_attrs);
+        var rows      = new ArrayList <Comparable []> ();
+        var buildLeft = tuples.size () <= table2.tuples.size ();             // build on the smaller input
+
+        var ix2 = table2.secondaryIndex (u_attrs);                          // prebuilt hash table
+        if (ix2 != null) {
+            for (var t : tuples) table2.probeIndex (ix2, t, t_cols, rows);
+        } else if (t_cols.length == 1 && codes (t_cols [0]) != null && table2.codes (u_cols [0]) != null) {
+            if (buildLeft) codeJoin (this, t_cols [0], table2, u_cols [0], true, rows);
+            else           codeJoin (table2, u_cols [0], this, t_cols [0], false, rows);
+        } else if (Math.min (tuples.size (), table2.tuples.size ()) <= joinBudget) {
+            if (buildLeft) {
+                var ht = buildHash (tuples, t_cols);
+                for (var u : table2.tuples) probeHash (ht, u, u_cols, true, rows);
+            } else {
+                var ht = buildHash (table2.tuples, u_cols);
+                for (var t : tuples) probeHash (ht, t, t_cols, false, rows);
+            } // if
+        } else if (! spillJoin (t_cols, table2, u_cols, buildLeft, rows)) {
+            return null;
+        } // if
 
-        return null;
+        return new Table (name + count++, concat (attribute, disambiguate (table2)),
+                                          concat (domain, table2.domain), key, rows);
     } // h_join
 
+    /************************************************************************************
+     * Hash join on a single dictionary encoded attribute of both tables by comparing
+     * codes.  The build tuples are chained per code in two int arrays and each probe code
+     * is translated to the build dictionary's code once per distinct value.
+     *
+     * @param build      the build-side table
+     * @param b_col      the join column of the build-side table
+     * @param probe      the probe-side table
+     * @param p_col      the join column of the probe-side table
+     * @param buildLeft  whether the build side is the lhs table
+     * @param rows       the list collecting the joined tuples
+     */
+    private static void codeJoin (Table build, int b_col, Table probe, int p_col, boolean buildLeft,
+                                  List <Comparable []> rows)
+    {
+        var bDict  = build.dictionary (b_col);
+        var pDict  = probe.dictionary (p_col);
+        var bCodes = build.codes (b_col);
+        var pCodes = probe.codes (p_col);
+
+        var remap = new int [pDict.size ()];                                 // probe code -> build code
+        for (var c = 0; c < remap.length; c++) remap [c] = bDict.lookup (pDict.decode (c));
+
+        var head = new int [bDict.size ()];                                  // first build tuple per code
+        var next = new int [build.tuples.size ()];                           // next build tuple, same code
+        Arrays.fill (head, -1);
+        for (var i = build.tuples.size () - 1; i >= 0; i--) {
+            var c = bCodes [i];
+            if (c < 0) continue;
+            next [i] = head [c];
+            head [c] = i;
+        } // for
+
+        for (var k = 0; k < probe.tuples.size (); k++) {
+            var c = (pCodes [k] < 0) ? -1 : remap [pCodes [k]];
+            if (c < 0 || head [c] < 0) continue;
+            var p = probe.tuples.get (k);
+            for (var i = head [c]; i >= 0; i = next [i]) {
+                var b = build.tuples.get (i);
+                rows.add (buildLeft ? concat (b, p) : concat (p, b));
+            } // for
+        } // for
+    } // codeJoin
+
+    /************************************************************************************
+     * Set the memory budget for hash joins, i.e., the maximum number of build-side tuples
+     * h_join holds in memory before it spills partitions to the storage directory.
+     *
+     * @param _joinBudget  the maximum number of in-memory build tuples
+     */
+    public static void setJoinBudget (int _joinBudget)
+    {
+        joinBudget = _joinBudget;
+    } // setJoinBudget
+
     /************************************************************************************
      * Join this table and table2 by performing an "natural join".  Tuples from both tables
      * are compared requiring common attributes to be equal.  The duplicate column is also
@@ -432,7 +826,7 @@ public class Table
      */
     public Table join (Table table2)
     {
-        out.println ("RA> " + name + ".join (" + table2.name + ")");
+        if (Log.isOn (Log.Level.INFO)) Log.info ("RA> " + name + ".join (" + table2.name + ")");
 
         var rows = new ArrayList <Comparable []> ();
 
@@ -490,9 +884,9 @@ public class Table
                 String d1 = domain[t_keysPos[i]].getName();
                 String d2 = table2.domain[u_keysPos[i]].getName();
                 if ( ! d1.equals(d2)) {
-                    out.println("The domain of attribute " + attribute[t_keysPos[i]] + " is " + d1);
-                    out.println("The domain of attribute " + table2.attribute[u_keysPos[i]] + " is " + d2);
-                    out.println("These domain dont match!");
+                    Log.error ("The domain of attribute " + attribute[t_keysPos[i]] + " is " + d1);
+                    Log.error ("The domain of attribute " + table2.attribute[u_keysPos[i]] + " is " + d2);
+                    Log.error ("These domain dont match!");
                     return null;
                 }
             }
@@ -503,7 +897,7 @@ public class Table
                     int match = 0;
 
                     for(int k = 0; k < t_keysPos.length; k++) {
-                        if( tup1[t_keysPos[k]] == tup2[u_keysPos[k]]) {match++;}
+                        if( tup1[t_keysPos[k]].equals (tup2[u_keysPos[k]])) {match++;}
                     }
 
                     if(match == t_keysPos.length) {
@@ -530,7 +924,7 @@ public class Table
 
 
                     for(int i = 0; i < attribute.length; i++) {
-                        if(!(testTup[i] == tup1[i])) {
+                        if(!(testTup[i].equals (tup1[i]))) {
                             addRow = false;
                         }
                     }
@@ -573,14 +967,18 @@ public class Table
      */
     public boolean insert (Comparable [] tup)
     {
-        out.println ("DML> insert into " + name + " values ( " + Arrays.toString (tup) + " )");
+        if (Log.isOn (Log.Level.DEBUG)) Log.debug ("DML> insert into " + name + " values ( " + Arrays.toString (tup) + " )");
 
         if (typeCheck (tup)) {
-            tuples.add (tup);
-            var keyVal = new Comparable [key.length];
-            var cols   = match (key);
-            for (var j = 0; j < keyVal.length; j++) keyVal [j] = tup [cols [j]];
-            if (mType != MapType.NO_MAP) index.put (new KeyType (keyVal), tup);
+            if (wal != null) {
+                try {
+                    wal.append (WriteAheadLog.INSERT, tuples.size (), tup);
+                } catch (IOException ex) {
+                    Log.error ("insert: IO Exception", ex);
+                    return false;
+                } // try
+            } // if
+            append (tup);
             return true;
         } else {
             return false;
@@ -588,90 +986,409 @@ public class Table
     } // insert
 
     /************************************************************************************
-     * Get the name of the table.
+     * Insert a batch of tuples into the table.  The whole batch is type checked first and
+     * rejected if any tuple fails.  The tuples are then appended to storage and the index
+     * is updated once for the batch: an empty B+Tree or TreeMap index is bulk loaded from
+     * the sorted keys, other indices receive the new keys in one pass.  The batch's row
+     * ids are grouped by key for each secondary index, which then takes each group's row
+     * ids at once.
      *
-     * @return  the table's name
+     * #usage movie.insertAll (new Comparable [][] { film0, film1, film2 })
+     *
+     * @param tups  the tuples to insert
+     * @return  the number of tuples inserted
      */
-    public String getName ()
+    public int insertAll (Comparable [][] tups)
     {
-        return name;
-    } // getName
+        if (Log.isOn (Log.Level.INFO)) Log.info ("DML> insert into " + name + " values ( " + tups.length + " tuples )");
 
-    /************************************************************************************
-     * Print this table.
-     */
-    public void print ()
-    {
-        out.println ("\n Table " + name);
-        out.print ("|-");
-        out.print ("---------------".repeat (attribute.length));
-        out.println ("-|");
-        out.print ("| ");
-        for (var a : attribute) out.printf ("%15s", a);
-        out.println (" |");
-        out.print ("|-");
-        out.print ("---------------".repeat (attribute.length));
-        out.println ("-|");
-        for (var tup : tuples) {
-            out.print ("| ");
-            for (var attr : tup) out.printf ("%15s", attr);
-            out.println (" |");
+        for (var i = 0; i < tups.length; i++) {
+            if (! typeCheck (tups [i])) {
+                Log.error ("insertAll ERROR: tuple " + i + " rejected, no tuples inserted");
+                return 0;
+            } // if
         } // for
-        out.print ("|-");
-        out.print ("---------------".repeat (attribute.length));
-        out.println ("-|");
-    } // print
 
-    /************************************************************************************
-     * Print this table's index (Map).
-     */
-    public void printIndex ()
-    {
-        out.println ("\n Index for " + name);
-        out.println ("-------------------");
-        if (mType != MapType.NO_MAP) {
-            for (var e : index.entrySet ()) {
-                out.println (e.getKey () + " -> " + Arrays.toString (e.getValue ()));
+        var from = tuples.size ();
+        if (wal != null) {
+            try {
+                for (var i = 0; i < tups.length; i++) wal.append (WriteAheadLog.INSERT, from + i, tups [i]);
+                wal.commit ();
+            } catch (IOException ex) {
+                Log.error ("insertAll: IO Exception", ex);
+                return 0;
+            } // try
+        } // if
+
+        if (tuples instanceof ArrayList <Comparable []> list) list.ensureCapacity (from + tups.length);
+        for (var t : tups) {
+            if (dict != null) encodeRow (t, tuples.size ());
+            tuples.add (t);
+        } // for
+        if (deferred == null) {
+            indexFrom (from);
+            for (var e : secondary.entrySet ()) {
+                var cols   = match (e.getKey ().split (" "));
+                var groups = new HashMap <KeyType, List <Integer>> ();          // the batch's row ids by key
+                for (var i = 0; i < tups.length; i++) groups.computeIfAbsent (keyOf (tups [i], cols), k -> new ArrayList <> ()).add (from + i);
+                var six = e.getValue ();
+                for (var g : groups.entrySet ()) {
+                    six.merge (g.getKey (), g.getValue (), (rows, added) -> { rows.addAll (added); return rows; });
+                } // for
             } // for
         } // if
-        out.println ("-------------------");
-    } // printIndex
+        return tups.length;
+    } // insertAll
 
-    /*
-    ***********************************************************************************
-     * Load the table with the given name into memory. 
+    /************************************************************************************
+     * Insert a stream of tuples into the table as one batch (see insertAll (Comparable [][])).
      *
-     * @param name  the name of the table to load
+     * #usage student.insertAll (Arrays.stream (gen.generate (sizes) [0]))
+     *
+     * @param tups  the stream of tuples to insert
+     * @return  the number of tuples inserted
+     */
+    public int insertAll (Stream <Comparable []> tups)
+    {
+        return insertAll (tups.toArray (Comparable [][]::new));
+    } // insertAll
+
+    /************************************************************************************
+     * Rebuild this table's index using the given type of map, e.g., a hash map for a
+     * point-lookup heavy workload or a tree map for range queries.
+     *
+     * #usage movieExec.setMapType (Table.MapType.LINHASH_MAP)
+     *
+     * @param _mType  the type of map to use for the index
+     */
+    public void setMapType (MapType _mType)
+    {
+        if (Log.isOn (Log.Level.INFO)) Log.info ("DDL> alter table " + name + " using " + _mType);
+
+        mType = _mType;
+        index = makeMap (mType);
+        if (deferred == null) indexFrom (0);
+    } // setMapType
+
+    /************************************************************************************
+     * Dictionary encode the given String attributes: each distinct value is kept once and
+     * given a small integer code that is stored alongside the tuples, and equality select
+     * and h_join on these attributes compare codes.  Values inserted later are encoded as
+     * well.  Columnar tables already store all String attributes as codes.
+     *
+     * #usage movie.encode ("genre studioName")
+     *
+     * @param attributes  the attributes to encode
+     * @return  whether the attributes are now encoded
+     */
+    public boolean encode (String attributes)
+    {
+        if (Log.isOn (Log.Level.INFO)) Log.info ("DDL> alter table " + name + " encode (" + attributes + ")");
+
+        var attrs = attributes.split (" ");
+        for (var a : attrs) {
+            var j = col (a);
+            if (j < 0 || domain [j] != String.class) {
+                Log.error ("encode ERROR: " + a + " is not a String attribute");
+                return false;
+            } // if
+        } // for
+        if (tuples instanceof ColumnStore) return true;
+        if (! (tuples instanceof ArrayList)) {
+            Log.error ("encode ERROR: tuples of " + name + " cannot be encoded in place");
+            return false;
+        } // if
+
+        if (dict == null) {
+            dict = new Dictionary [attribute.length];
+            code = new int [attribute.length][];
+        } // if
+        for (var j : match (attrs)) {
+            if (dict [j] != null) continue;
+            dict [j] = new Dictionary ();
+            code [j] = new int [Math.max (16, tuples.size ())];
+            for (var i = 0; i < tuples.size (); i++) {
+                var t = tuples.get (i);
+                code [j][i] = dict [j].encodeOrNull (t [j]);
+                if (t [j] != null) t [j] = dict [j].decode (code [j][i]);      // share one copy per value
+            } // for
+        } // for
+        return true;
+    } // encode
+
+    /************************************************************************************
+     * Create a secondary index on the given (non-key) attributes, using this table's map
+     * type.  The index is kept up to date by insert and used by select (attributes, vals),
+     * i_join and h_join.
+     *
+     * #usage movie.createIndex ("genre")
+     *
+     * @param attributes  the attributes to index
+     * @return  whether the index was created
+     */
+    public boolean createIndex (String attributes)
+    {
+        return createIndex (attributes, mType == MapType.NO_MAP ? DEFAULT_MAP : mType);
+    } // createIndex
+
+    /************************************************************************************
+     * Create a secondary index on the given (non-key) attributes using the given type of
+     * map.  Replaces any existing index on the same attributes.
+     *
+     * @param attributes  the attributes to index
+     * @param _mType      the type of map to use for the index
+     * @return  whether the index was created
+     */
+    @SuppressWarnings("unchecked")
+    public boolean createIndex (String attributes, MapType _mType)
+    {
+        if (Log.isOn (Log.Level.INFO)) Log.info ("DDL> create index on " + name + " (" + attributes + ") using " + _mType);
+
+        var attrs = attributes.split (" ");
+        for (var a : attrs) {
+            if (col (a) < 0) {
+                Log.error ("createIndex ERROR: unknown attribute " + a);
+                return false;
+            } // if
+        } // for
+        ensureIndexed ();
+        var six = (Map <KeyType, List <Integer>>) (Map) makeMap (_mType, List.class);
+        if (six == null) {
+            Log.error ("createIndex ERROR: cannot index using " + _mType);
+            return false;
+        } // if
+
+        var cols = match (attrs);
+        var i    = 0;
+        for (var t : tuples) six.computeIfAbsent (keyOf (t, cols), k -> new ArrayList <> ()).add (i++);
+        secondary.put (String.join (" ", attrs), six);
+        return true;
+    } // createIndex
+
+    /************************************************************************************
+     * Drop the secondary index on the given attributes.
+     *
+     * @param attributes  the indexed attributes
+     * @return  whether there was such an index
+     */
+    public boolean dropIndex (String attributes)
+    {
+        if (Log.isOn (Log.Level.INFO)) Log.info ("DDL> drop index on " + name + " (" + attributes + ")");
+
+        ensureIndexed ();
+        return secondary.remove (String.join (" ", attributes.split (" "))) != null;
+    } // dropIndex
+
+    /************************************************************************************
+     * Log this table's inserts to a write-ahead log (in the store directory next to its
+     * file), so that they survive a crash without the table being saved.  The log is
+     * replayed when the table is loaded and emptied when it is saved.  The sync policy
+     * determines when records are forced to disk: GROUP forces them a group at a time
+     * (and on commit), ALWAYS after every insert, NONE leaves it to the operating system.
+     *
+     * #usage movie.useLog (WriteAheadLog.Sync.GROUP)
+     *
+     * @param sync  the sync policy for the log
+     * @return  whether the log was opened
+     */
+    public boolean useLog (WriteAheadLog.Sync sync)
+    {
+        if (Log.isOn (Log.Level.INFO)) Log.info ("DDL> alter table " + name + " log using " + sync);
+
+        try {
+            if (wal != null) wal.close ();
+            wal = new WriteAheadLog (new File (DIR + name + LOG), domain, sync, WriteAheadLog.GROUP_SIZE);
+            return true;
+        } catch (IOException ex) {
+            Log.error ("useLog: IO Exception", ex);
+            return false;
+        } // try
+    } // useLog
+
+    /************************************************************************************
+     * Make the logged inserts durable: write the pending group of log records and force
+     * the log to disk (unless its sync policy is NONE).
+     *
+     * #usage movie.commit ()
+     */
+    public void commit ()
+    {
+        if (wal == null) return;
+        try {
+            wal.commit ();
+        } catch (IOException ex) {
+            Log.error ("commit: IO Exception", ex);
+        } // try
+    } // commit
+
+    /************************************************************************************
+     * Get the type of map used for this table's index.
+     *
+     * @return  the table's map type
+     */
+    public MapType getMapType ()
+    {
+        return mType;
+    } // getMapType
+
+    /************************************************************************************
+     * Get the name of the table.
+     *
+     * @return  the table's name
+     */
+    public String getName ()
+    {
+        return name;
+    } // getName
+
+    /************************************************************************************
+     * Print this table.
+     */
+    public void print ()
+    {
+        out.println ("\n Table " + name);
+        out.print ("|-");
+        out.print ("---------------".repeat (attribute.length));
+        out.println ("-|");
+        out.print ("| ");
+        for (var a : attribute) out.printf ("%15s", a);
+        out.println (" |");
+        out.print ("|-");
+        out.print ("---------------".repeat (attribute.length));
+        out.println ("-|");
+        for (var tup : tuples) {
+            out.print ("| ");
+            for (var attr : tup) out.printf ("%15s", attr);
+            out.println (" |");
+        } // for
+        out.print ("|-");
+        out.print ("---------------".repeat (attribute.length));
+        out.println ("-|");
+    } // print
+
+    /************************************************************************************
+     * Print this table's index (Map).
+     */
+    public void printIndex ()
+    {
+        out.println ("\n Index for " + name);
+        out.println ("-------------------");
+        ensureIndexed ();
+        if (index != null) {
+            for (var e : index.entrySet ()) {
+                out.println (e.getKey () + " -> " + e.getValue () + ": " + Arrays.toString (tuples.get (e.getValue ())));
+            } // for
+        } // if
+        out.println ("-------------------");
+    } // printIndex
+
+    /*
+    ***********************************************************************************
+     * Load the table with the given name into memory.  Tables saved in the page-oriented
+     * TableFile format are decoded page by page; their indices are read from the table's
+     * index file (or rebuilt if it is missing or stale) on the first key lookup.
+     *
+     * @param name  the name of the table to load
      */
     public static Table load (String name)
     {
         Table tab = null;
         try {
-            ObjectInputStream ois = new ObjectInputStream (new FileInputStream (DIR + name + EXT));
-            tab = (Table) ois.readObject ();
-            ois.close ();
+            var buf = java.nio.ByteBuffer.wrap (java.nio.file.Files.readAllBytes (new File (DIR + name + EXT).toPath ()));
+            var h = TableFile.readHeader (buf);
+            tab = new Table (h.name, h.attribute, h.domain, h.key, MapType.valueOf (h.mapType),
+                             Layout.valueOf (h.layout));
+            if (h.encoded.length > 0) tab.encode (String.join (" ", h.encoded));
+            tab.stamp    = IndexFile.stamp (buf);
+            tab.deferred = h.indexed;
+            for (var t : TableFile.readTuples (buf, h)) tab.append (t);
+            replay (tab);
         } catch (IOException ex) {
-            out.println ("load: IO Exception");
-            ex.printStackTrace ();
-        } catch (ClassNotFoundException ex) {
-            out.println ("load: Class Not Found Exception");
-            ex.printStackTrace ();
+            Log.error ("load: IO Exception", ex);
         } // try
         return tab;
     } // load
 
     /************************************************************************************
-     * Save this table in a file.
+     * Map the table with the given name into memory instead of loading it.  The table
+     * file is memory-mapped and its tuples are decoded only when an operator touches
+     * them; the index and secondary indices are read from the table's index file (or
+     * rebuilt) on the first key lookup, so opening a large table costs little more than
+     * mapping its file.  Inserted tuples are kept on the heap until the table is saved.
+     * Dictionary encoding is not applied to mapped tables.
+     *
+     * #usage var movie = Table.map ("movie")
+     *
+     * @param name  the name of the table to map
+     */
+    public static Table map (String name)
+    {
+        var file = new File (DIR + name + EXT);
+        try {
+            var rows = MappedRows.map (file);
+            return fromFile (rows, rows.header (), file);
+        } catch (IOException ex) {
+            Log.error ("map: IO Exception", ex);
+            return null;
+        } // try
+    } // map
+
+    /************************************************************************************
+     * Open the table with the given name with its pages read through the given buffer
+     * pool, so that tables larger than memory may be queried using only the pool's
+     * frames for their tuples.  As for map, indices are read on the first key lookup.
+     * Inserted tuples are written to the table's pages through the pool and saving the
+     * table flushes them to its file in place.
+     *
+     * #usage var pool  = new BufferPool (64)
+     *        var movie = Table.open ("movie", pool)
+     *
+     * @param name  the name of the table to open
+     * @param pool  the buffer pool to read pages through
+     */
+    public static Table open (String name, BufferPool pool)
+    {
+        try {
+            var file = new File (DIR + name + EXT);
+            var rows = PagedRows.open (file, pool);
+            return fromFile (rows, rows.header (), file);
+        } catch (IOException ex) {
+            Log.error ("open: IO Exception", ex);
+            return null;
+        } // try
+    } // open
+
+    /************************************************************************************
+     * Save this table in a file using the page-oriented TableFile format: the schema
+     * followed by fixed-size pages of tuples, each value encoded according to its domain.
+     * The indices are saved next to it in an index file (see IndexFile), stamped with the
+     * table file so that a later change to either is detected when they are read.
      */
     public void save ()
     {
+        ensureIndexed ();
+        var h = new TableFile.Header ();
+        h.name      = name;
+        h.attribute = attribute;
+        h.domain    = domain;
+        h.key       = key;
+        h.mapType   = mType.name ();
+        h.layout    = (tuples instanceof ColumnStore ? Layout.COLUMN : Layout.ROW).name ();
+        var enc = new ArrayList <String> ();
+        for (var j = 0; dict != null && j < dict.length; j++) if (dict [j] != null) enc.add (attribute [j]);
+        h.encoded = enc.toArray (new String [0]);
+        var ixs = new ArrayList <String> ();
+        for (var e : secondary.entrySet ()) ixs.add (e.getKey () + ":" + mapTypeOf (e.getValue ()));
+        h.indexed = ixs.toArray (new String [0]);
         try {
-            var oos = new ObjectOutputStream (new FileOutputStream (DIR + name + EXT));
-            oos.writeObject (this);
-            oos.close ();
+            var file = new File (DIR + name + EXT);
+            if (tuples instanceof PagedRows pr) pr.flush (h);
+            else TableFile.write (file, h, tuples);
+            saveIndices (file);
+            if (wal != null) wal.truncate ();                               // the file now holds the logged inserts
+            else java.nio.file.Files.deleteIfExists (new File (DIR + name + LOG).toPath ());
         } catch (IOException ex) {
-            out.println ("save: IO Exception");
-            ex.printStackTrace ();
+            Log.error ("save: IO Exception", ex);
         } // try
     } // save
 
@@ -679,6 +1396,255 @@ public class Table
     // Private Methods
     //----------------------------------------------------------------------------------
 
+    /************************************************************************************
+     * Append a (type checked) tuple to the table, encoding it and updating the index and
+     * secondary indices (unless they are yet to be read or built).
+     *
+     * @param tup  the tuple to append
+     */
+    private void append (Comparable [] tup)
+    {
+        var row = tuples.size ();
+        if (dict != null) encodeRow (tup, row);
+        tuples.add (tup);
+        if (deferred != null) return;
+        if (index != null) putRow (keyOf (tup, match (key)), row);
+        for (var e : secondary.entrySet ()) {
+            var cols = match (e.getKey ().split (" "));
+            e.getValue ().computeIfAbsent (keyOf (tup, cols), k -> new ArrayList <> ()).add (row);
+        } // for
+    } // append
+
+    /************************************************************************************
+     * Make a table over the tuples of a table file (mapped or paged) whose indices are
+     * read or built when first needed.
+     *
+     * @param rows  the tuples of the file
+     * @param h     the file's header
+     * @param file  the table file
+     * @return  the table
+     */
+    private static Table fromFile (List <Comparable []> rows, TableFile.Header h, File file)
+           throws IOException
+    {
+        var tab = new Table (h.name, h.attribute, h.domain, h.key, rows);
+        tab.mType    = MapType.valueOf (h.mapType);
+        tab.index    = makeMap (tab.mType);
+        tab.stamp    = IndexFile.stamp (file);
+        tab.deferred = h.indexed;
+        replay (tab);
+        return tab;
+    } // fromFile
+
+    /************************************************************************************
+     * Redo the inserts in the table's write-ahead log that its file does not yet hold,
+     * i.e., those logged at or beyond its number of tuples.
+     *
+     * @param tab  the table just read from its file
+     */
+    private static void replay (Table tab)
+           throws IOException
+    {
+        var n = WriteAheadLog.replay (new File (DIR + tab.name + LOG), tab.domain, (op, pos, t) -> {
+            if (op == WriteAheadLog.INSERT && pos >= tab.tuples.size ()) tab.append (t);
+        });
+        if (n > 0 && Log.isOn (Log.Level.INFO)) Log.info ("DML> replay " + n + " log records into " + tab.name);
+    } // replay
+
+    /************************************************************************************
+     * Read or build the deferred indices of a table read from its file: the index and the
+     * secondary indices it was saved with.  Indices found in the table's index file (of
+     * the same map type, for the same table file) are read from it and then given the
+     * tuples inserted since; the others are built from all the tuples.
+     */
+    @SuppressWarnings("unchecked")
+    private void ensureIndexed ()
+    {
+        if (deferred == null) return;
+        var ixs = deferred;
+        deferred = null;
+        index = makeMap (mType);
+
+        var saved = IndexFile.read (new File (DIR + name + IDX), stamp);
+        if (saved != null && saved.nRows > tuples.size ()) saved = null;
+        IndexFile.Index pk = null;
+        var found = new HashMap <String, IndexFile.Index> ();
+        for (var ix : (saved == null) ? List.<IndexFile.Index> of () : saved.indexes) {
+            if (! ix.unique) found.put (ix.attrs + ":" + ix.mapType, ix);
+            else if (ix.mapType.equals (mType.name ())) pk = ix;
+        } // for
+        if (saved != null && Log.isOn (Log.Level.INFO)) Log.info ("DDL> read indices of " + name + " for " + saved.nRows + " tuples");
+
+        if (pk != null) {
+            readIndex (pk);
+            indexFrom (saved.nRows);
+        } else {
+            indexFrom (0);
+        } // if
+        for (var def : ixs) {
+            var ix = found.get (def);
+            if (ix == null) {
+                var i = def.lastIndexOf (':');
+                createIndex (def.substring (0, i), MapType.valueOf (def.substring (i + 1)));
+                continue;
+            } // if
+            var six  = (Map <KeyType, List <Integer>>) (Map) makeMap (MapType.valueOf (ix.mapType), List.class);
+            for (var i = 0; i < ix.keys.length; i++) six.put (ix.keys [i], ix.rowsOf (i));
+            var cols = match (ix.attrs.split (" "));
+            var row  = saved.nRows;
+            for (var t : tuples.subList (row, tuples.size ())) six.computeIfAbsent (keyOf (t, cols), k -> new ArrayList <> ()).add (row++);
+            secondary.put (ix.attrs, six);
+        } // for
+    } // ensureIndexed
+
+    /************************************************************************************
+     * Fill the (empty) index from an index read from the index file.  Its keys are in the
+     * map's order, so a B+Tree index is bulk loaded from them.
+     *
+     * @param ix  the index as read
+     */
+    @SuppressWarnings("unchecked")
+    private void readIndex (IndexFile.Index ix)
+    {
+        if (index instanceof BpTreeMap bpt) {
+            bpt.bulkLoad (new Iterator <Map.Entry <KeyType, Integer>> () {
+                private int i = 0;
+                public boolean hasNext () { return i < ix.keys.length; }
+                public Map.Entry <KeyType, Integer> next ()
+                {
+                    var e = new AbstractMap.SimpleImmutableEntry <> (ix.keys [i], ix.rows [i]);
+                    i++;
+                    return e;
+                } // next
+            });
+        } else {
+            if (index instanceof OpenHashMap oh) oh.ensureCapacity (tuples.size ());
+            for (var i = 0; i < ix.keys.length; i++) putRow (ix.keys [i], ix.rows [i]);
+        } // if
+    } // readIndex
+
+    /************************************************************************************
+     * Save the index and secondary indices to the index file for the given (just saved)
+     * table file, or remove a stale index file if the table has no indices.
+     *
+     * @param file  the table file
+     */
+    private void saveIndices (File file)
+           throws IOException
+    {
+        var idx = new File (DIR + name + IDX);
+        var ixs = new ArrayList <IndexFile.Index> ();
+        if (index != null) {
+            ixs.add (new IndexFile.Index (String.join (" ", key), mType.name (), true,
+                                          extractDom (match (key), domain), index));
+        } // if
+        for (var e : secondary.entrySet ()) {
+            ixs.add (new IndexFile.Index (e.getKey (), mapTypeOf (e.getValue ()).name (), false,
+                                          extractDom (match (e.getKey ().split (" ")), domain), e.getValue ()));
+        } // for
+        if (ixs.isEmpty ()) java.nio.file.Files.deleteIfExists (idx.toPath ());
+        else IndexFile.write (idx, IndexFile.stamp (file), tuples.size (), ixs);
+    } // saveIndices
+
+    /************************************************************************************
+     * Return the secondary index on the given attributes, or null if there is none.
+     *
+     * @param attrs  the indexed attributes
+     * @return  the secondary index
+     */
+    private Map <KeyType, List <Integer>> secondaryIndex (String [] attrs)
+    {
+        ensureIndexed ();
+        return secondary.get (String.join (" ", attrs));
+    } // secondaryIndex
+
+    /************************************************************************************
+     * Add the tuples from position from onward to the index.  An empty B+Tree or TreeMap
+     * index is bulk loaded from the keys in sorted order (the last of equal keys wins, as
+     * for put): a TreeMap builds itself from a sorted map in linear time.  An open
+     * addressing index is grown once for all the keys.
+     *
+     * @param from  the position of the first tuple to index
+     */
+    @SuppressWarnings("unchecked")
+    private void indexFrom (int from)
+    {
+        if (index == null) return;
+        var cols = match (key);
+        var n    = tuples.size () - from;
+        var tups = (from == 0) ? tuples : tuples.subList (from, tuples.size ());  // scan rather than get
+        var row  = from;
+        if ((index instanceof BpTreeMap || index instanceof TreeMap) && index.size () == 0 && n > 0) {
+            var entries = new ArrayList <Map.Entry <KeyType, Integer>> (n);
+            for (var t : tups) entries.add (new AbstractMap.SimpleImmutableEntry <> (keyOf (t, cols), row++));
+            entries.sort (Map.Entry.comparingByKey ());                       // stable: equal keys keep order
+            var w = 0;
+            for (var e : entries) {
+                if (w > 0 && entries.get (w - 1).getKey ().equals (e.getKey ())) w--;
+                entries.set (w++, e);
+            } // for
+            var sorted = entries.subList (0, w);
+            if (index instanceof BpTreeMap bpt) bpt.bulkLoad (sorted.iterator ());
+            else index.putAll (new SortedEntries (sorted));
+        } else {
+            if (index instanceof OpenHashMap oh) oh.ensureCapacity (oh.size () + n);
+            for (var t : tups) putRow (keyOf (t, cols), row++);
+        } // if
+    } // indexFrom
+
+    /************************************************************************************
+     * Put the key of the tuple at the given row id in the index (an OPEN_MAP index takes
+     * the row id without boxing it).
+     *
+     * @param k    the key of the tuple
+     * @param row  the row id of the tuple
+     */
+    private void putRow (KeyType k, int row)
+    {
+        if (index instanceof OpenHashMap <KeyType, Integer> oh) oh.putRow (k, row);
+        else index.put (k, row);
+    } // putRow
+
+    /************************************************************************************
+     * Return the row id of the tuple with the given key according to the index.
+     *
+     * @param k  the key to look up
+     * @return  the row id, or -1 if no tuple has the key
+     */
+    private int rowOf (KeyType k)
+    {
+        if (index instanceof OpenHashMap <KeyType, Integer> oh) return oh.getRow (k);
+        var r = index.get (k);
+        return (r == null) ? -1 : r;
+    } // rowOf
+
+    /************************************************************************************
+     * Return the tuples at the given row ids, in the order given.
+     *
+     * @param rowIds  the row ids (from an index)
+     * @return  the list of tuples
+     */
+    private List <Comparable []> rowsAt (Collection <Integer> rowIds)
+    {
+        var rows = new ArrayList <Comparable []> (rowIds.size ());
+        for (var r : rowIds) rows.add (tuples.get (r));
+        return rows;
+    } // rowsAt
+
+    /************************************************************************************
+     * Return the map type of the given map (index).
+     *
+     * @param map  the map
+     * @return  its map type
+     */
+    private static MapType mapTypeOf (Map <?, ?> map)
+    {
+        if (map instanceof LinHashMap)  return MapType.LINHASH_MAP;
+        if (map instanceof BpTreeMap)   return MapType.BPTREE_MAP;
+        if (map instanceof OpenHashMap) return MapType.OPEN_MAP;
+        return MapType.TREE_MAP;
+    } // mapTypeOf
+
     /************************************************************************************
      * Determine whether the two tables (this and table2) are compatible, i.e., have
      * the same number of attributes each with the same corresponding domain.
@@ -689,12 +1655,12 @@ public class Table
     private boolean compatible (Table table2)
     {
         if (domain.length != table2.domain.length) {
-            out.println ("compatible ERROR: table have different arity");
+            Log.error ("compatible ERROR: table have different arity");
             return false;
         } // if
         for (var j = 0; j < domain.length; j++) {
             if (domain [j] != table2.domain [j]) {
-                out.println ("compatible ERROR: tables disagree on domain " + j);
+                Log.error ("compatible ERROR: tables disagree on domain " + j);
                 return false;
             } // if
         } // for
@@ -720,7 +1686,7 @@ public class Table
                 } // for
             } // for
             if ( ! matched) {
-                out.println ("match: domain not found for " + column [j]);
+                Log.error ("match: domain not found for " + column [j]);
             } // if
         } // for
 
@@ -742,6 +1708,469 @@ public class Table
         return tup;
     } // extract
 
+    /************************************************************************************
+     * Extract the attributes at the given column positions from tuple t.
+     *
+     * @param t       the tuple to extract from
+     * @param colPos  the array of column positions
+     * @return  a smaller tuple extracted from tuple t
+     */
+    private static Comparable [] extract (Comparable [] t, int [] colPos)
+    {
+        var tup = new Comparable [colPos.length];
+        for (var j = 0; j < colPos.length; j++) tup [j] = t [colPos [j]];
+        return tup;
+    } // extract
+
+    /************************************************************************************
+     * Make the key of tuple t on the given columns, using a specialized key (IntKey,
+     * LongKey, PairKey) when the key's domain allows, so no array is allocated for it.
+     *
+     * @param t     the tuple
+     * @param cols  the key column positions
+     * @return  the key of tuple t
+     */
+    private static KeyType keyOf (Comparable [] t, int [] cols)
+    {
+        return switch (cols.length) {
+            case 1  -> KeyType.of (t [cols [0]]);
+            case 2  -> KeyType.of (t [cols [0]], t [cols [1]]);
+            default -> new KeyType (extract (t, cols));
+        }; // switch
+    } // keyOf
+
+    /************************************************************************************
+     * Return a reusable probe key for lookups on the given key columns, or null if the key
+     * has more than one column.
+     *
+     * @param cols  the key column positions
+     * @return  the probe key, or null
+     */
+    private static IntKey probeFor (int [] cols)
+    {
+        return (cols.length == 1) ? new IntKey (0) : null;
+    } // probeFor
+
+    /************************************************************************************
+     * Return the key of tuple t for a lookup (not to be stored).  A single Integer key is
+     * set into the reusable probe, so the lookup allocates nothing.
+     *
+     * @param probe  the probe key from probeFor (may be null)
+     * @param t      the tuple
+     * @param cols   the key column positions
+     * @return  the key of tuple t
+     */
+    private static KeyType probeOf (IntKey probe, Comparable [] t, int [] cols)
+    {
+        return (probe != null && t [cols [0]] instanceof Integer v) ? probe.set (v) : keyOf (t, cols);
+    } // probeOf
+
+    /************************************************************************************
+     * Return the dictionary of the j-th attribute if it is dictionary encoded.
+     *
+     * @param j  the attribute (column) position
+     * @return  the dictionary, or null if the attribute is not encoded
+     */
+    private Dictionary dictionary (int j)
+    {
+        if (tuples instanceof ColumnStore cs) return cs.dictionary (j);
+        return (dict == null) ? null : dict [j];
+    } // dictionary
+
+    /************************************************************************************
+     * Return the codes of the j-th attribute, parallel to tuples, if it is dictionary
+     * encoded.  The array may be longer than the number of tuples.
+     *
+     * @param j  the attribute (column) position
+     * @return  the codes (-1 for null), or null if the attribute is not encoded
+     */
+    private int [] codes (int j)
+    {
+        if (tuples instanceof ColumnStore cs) return cs.codes (j);
+        return (code == null) ? null : code [j];
+    } // codes
+
+    /************************************************************************************
+     * Encode the dictionary encoded attributes of tuple tup, which is to be stored at
+     * position i, replacing each value by the dictionary's copy.
+     *
+     * @param tup  the tuple to encode
+     * @param i    the tuple's position
+     */
+    private void encodeRow (Comparable [] tup, int i)
+    {
+        for (var j = 0; j < dict.length; j++) {
+            if (dict [j] == null) continue;
+            if (i >= code [j].length) code [j] = Arrays.copyOf (code [j], 2 * code [j].length);
+            code [j][i] = dict [j].encodeOrNull (tup [j]);
+            if (tup [j] != null) tup [j] = dict [j].decode (code [j][i]);
+        } // for
+    } // encodeRow
+
+    /************************************************************************************
+     * Determine whether the index covers every tuple of this table.  Tables produced by
+     * relational algebra operators are not indexed.
+     *
+     * @return  whether key lookups may be answered from the index
+     */
+    private boolean indexed ()
+    {
+        ensureIndexed ();
+        return index != null && index.size () == tuples.size ();
+    } // indexed
+
+    /************************************************************************************
+     * Return the tuples whose key is one of the given key values.  An indexed table does
+     * one lookup per key value, otherwise the tuples are scanned once.
+     *
+     * @param keyVals  the given key values
+     * @return  the list of matching tuples
+     */
+    private List <Comparable []> selectKeys (Collection <KeyType> keyVals)
+    {
+        List <Comparable []> rows = new ArrayList <> ();
+        var keys = new LinkedHashSet <> (keyVals);                           // each key at most once
+
+        if (indexed ()) {
+            for (var k : keys) {
+                var r = rowOf (k);
+                if (r >= 0) rows.add (tuples.get (r));
+            } // for
+        } else {
+            var cols  = match (key);
+            var probe = probeFor (cols);
+            for (var t : tuples) if (keys.contains (probeOf (probe, t, cols))) rows.add (t);
+        } // if
+        return rows;
+    } // selectKeys
+
+    /************************************************************************************
+     * Return the tuples in the given key range from an ordered index, or null if this
+     * table's index does not keep its keys in order.
+     *
+     * @param low      the low key value (null for none)
+     * @param lowInc   whether the low key value is included
+     * @param high     the high key value (null for none)
+     * @param highInc  whether the high key value is included
+     * @return  the tuples in the range in key order, or null for an unordered index
+     */
+    private List <Comparable []> range (KeyType low, boolean lowInc, KeyType high, boolean highInc)
+    {
+        if (index instanceof NavigableMap <KeyType, Integer> nav) {
+            if (low != null)  nav = nav.tailMap (low, lowInc);
+            if (high != null) nav = nav.headMap (high, highInc);
+            return rowsAt (nav.values ());
+        } // if
+        if (index instanceof BpTreeMap <KeyType, Integer> bpt) {
+            return rowsAt (bpt.subMap (low, lowInc, high, highInc).values ());
+        } // if
+        return null;
+    } // range
+
+    /************************************************************************************
+     * Return a membership test for (value) equal tuples of this table, for use by the
+     * set operators.  An indexed table answers it with one key lookup per tuple,
+     * otherwise a hash set of this table's tuples is built once.
+     *
+     * @return  a predicate that is true for tuples contained in this table
+     */
+    private Predicate <Comparable []> contains ()
+    {
+        if (indexed ()) {
+            var cols  = match (key);
+            var probe = probeFor (cols);
+            return t -> {
+                var r = rowOf (probeOf (probe, t, cols));
+                return r >= 0 && Arrays.equals (t, tuples.get (r));
+            };
+        } // if
+        var set = new HashSet <KeyType> ();
+        for (var t : tuples) set.add (KeyType.of (t));
+        return t -> set.contains (KeyType.of (t));
+    } // contains
+
+    /************************************************************************************
+     * If the given attributes are exactly the primary key (in any order), return for each
+     * key attribute its position in attrs, otherwise return null.
+     *
+     * @param attrs  the attribute names to compare with the key
+     * @return  the positions in attrs of the key attributes in key order, or null
+     */
+    private int [] keyOrder (String [] attrs)
+    {
+        if (attrs.length != key.length) return null;
+        var pos = new int [key.length];
+        for (var j = 0; j < key.length; j++) {
+            pos [j] = Arrays.asList (attrs).indexOf (key [j]);
+            if (pos [j] < 0) return null;
+        } // for
+        return pos;
+    } // keyOrder
+
+    /************************************************************************************
+     * Determine whether attributes1 of this table may be equi-joined with attributes2 of
+     * table2, i.e., both lists exist, have the same length and agree on their domains.
+     *
+     * @param t_attrs  the join attributes of this table
+     * @param u_attrs  the join attributes of table2
+     * @param table2   the rhs table in the join operation
+     * @return  whether the join attributes are compatible
+     */
+    private boolean joinable (String [] t_attrs, String [] u_attrs, Table table2)
+    {
+        if (t_attrs.length != u_attrs.length) {
+            Log.error ("joinable ERROR: join attribute lists differ in length");
+            return false;
+        } // if
+        for (var j = 0; j < t_attrs.length; j++) {
+            var t_col = col (t_attrs [j]);
+            var u_col = table2.col (u_attrs [j]);
+            if (t_col < 0 || u_col < 0) {
+                Log.error ("joinable ERROR: unknown join attribute " + (t_col < 0 ? t_attrs [j] : u_attrs [j]));
+                return false;
+            } // if
+            if (domain [t_col] != table2.domain [u_col]) {
+                Log.error ("joinable ERROR: domains of " + t_attrs [j] + " and " + u_attrs [j] + " differ");
+                return false;
+            } // if
+        } // for
+        return true;
+    } // joinable
+
+    /************************************************************************************
+     * Return table2's attribute names with "2" appended to any name that also appears in
+     * this table (table2's own attribute array is left untouched).
+     *
+     * @param table2  the rhs table in the join operation
+     * @return  the disambiguated attribute names of table2
+     */
+    private String [] disambiguate (Table table2)
+    {
+        var attrs2 = table2.attribute.clone ();
+        for (var j = 0; j < attrs2.length; j++) if (col (attrs2 [j]) >= 0) attrs2 [j] += "2";
+        return attrs2;
+    } // disambiguate
+
+    /************************************************************************************
+     * Build an in-memory hash table over the build-side tuples keyed on the join columns.
+     *
+     * @param build  the build-side tuples
+     * @param cols   the join column positions in the build-side tuples
+     * @return  a hash table mapping each join key to its matching tuples
+     */
+    private static Map <KeyType, List <Comparable []>> buildHash (Iterable <Comparable []> build, int [] cols)
+    {
+        var ht = new HashMap <KeyType, List <Comparable []>> ();
+        for (var b : build) ht.computeIfAbsent (keyOf (b, cols), k -> new ArrayList <> ()).add (b);
+        return ht;
+    } // buildHash
+
+    /************************************************************************************
+     * Probe the hash table with tuple p and add the joined tuples to rows.  Joined tuples
+     * always have this (lhs) table's columns first.
+     *
+     * @param ht         the hash table built by buildHash
+     * @param p          the probe tuple
+     * @param cols       the join column positions in the probe tuple
+     * @param buildLeft  whether the hash table was built on the lhs table
+     * @param rows       the list collecting the joined tuples
+     */
+    private static void probeHash (Map <KeyType, List <Comparable []>> ht, Comparable [] p, int [] cols,
+                                   boolean buildLeft, List <Comparable []> rows)
+    {
+        var matches = ht.get (keyOf (p, cols));
+        if (matches == null) return;
+        for (var b : matches) rows.add (buildLeft ? concat (b, p) : concat (p, b));
+    } // probeHash
+
+    /************************************************************************************
+     * Probe a secondary index of this (rhs) table with tuple t of the lhs table and add
+     * the joined tuples to rows.
+     *
+     * @param six   the secondary index on the join attributes of this table
+     * @param t     the lhs tuple
+     * @param cols  the join column positions in the lhs tuple
+     * @param rows  the list collecting the joined tuples
+     */
+    private void probeIndex (Map <KeyType, List <Integer>> six, Comparable [] t, int [] cols,
+                             List <Comparable []> rows)
+    {
+        var rowIds = six.get (keyOf (t, cols));
+        if (rowIds == null) return;
+        for (var r : rowIds) rows.add (concat (t, tuples.get (r)));
+    } // probeIndex
+
+    /************************************************************************************
+     * Perform a partitioned (Grace) hash join for build sides exceeding joinBudget.  Both
+     * inputs are hash partitioned on their join columns into files in the storage directory,
+     * then each build partition is loaded into memory and probed by streaming its matching
+     * probe partition (see graceJoin).  The partition files are removed afterwards.
+     *
+     * @param t_cols     the join column positions in this table
+     * @param table2     the rhs table in the join operation
+     * @param u_cols     the join column positions in table2
+     * @param buildLeft  whether to build on this (lhs) table
+     * @param rows       the list collecting the joined tuples
+     * @return  whether the join completed without an IO error
+     */
+    private boolean spillJoin (int [] t_cols, Table table2, int [] u_cols, boolean buildLeft,
+                               List <Comparable []> rows)
+    {
+        var build  = buildLeft ? tuples : table2.tuples;
+        var probe  = buildLeft ? table2.tuples : tuples;
+        var b_cols = buildLeft ? t_cols : u_cols;
+        var p_cols = buildLeft ? u_cols : t_cols;
+
+        try {
+            graceJoin (build, build.size (), probe, b_cols, p_cols, buildLeft, 0, rows);
+            return true;
+        } catch (IOException | UncheckedIOException ex) {
+            Log.error ("h_join: IO Exception", ex);
+        } // try
+        return false;
+    } // spillJoin
+
+    /************************************************************************************
+     * Perform one pass of a partitioned hash join: partition both inputs using the hash
+     * function of this pass, then join each pair of partitions.  A build partition within
+     * joinBudget is joined in memory; a larger one (skewed keys) is partitioned again by
+     * another pass using a different hash function.  A build partition still too large
+     * after MAX_PASSES passes, or one that a pass could not split (e.g., all its tuples
+     * share a key), is joined a joinBudget chunk at a time, each chunk probed by the whole
+     * probe partition, so the build tuples held in memory never exceed joinBudget.
+     *
+     * @param build      the build-side tuples
+     * @param bSize      the number of build-side tuples
+     * @param probe      the probe-side tuples
+     * @param b_cols     the join column positions in the build tuples
+     * @param p_cols     the join column positions in the probe tuples
+     * @param buildLeft  whether the build side is the lhs table
+     * @param pass       the number of the pass (0 for the first)
+     * @param rows       the list collecting the joined tuples
+     */
+    private void graceJoin (Iterable <Comparable []> build, int bSize, Iterable <Comparable []> probe,
+                            int [] b_cols, int [] p_cols, boolean buildLeft, int pass,
+                            List <Comparable []> rows)
+           throws IOException
+    {
+        var nParts = bSize / joinBudget + 1;
+        var bFiles = new File [nParts];
+        var pFiles = new File [nParts];
+        if (Log.isOn (Log.Level.DEBUG)) Log.debug ("h_join: pass " + pass + " spilling " + bSize + " build tuples into " + nParts + " partitions");
+
+        try {
+            var bCount = partition (build, b_cols, bFiles, "b", pass);
+            var pCount = partition (probe, p_cols, pFiles, "p", pass);
+
+            for (var i = 0; i < nParts; i++) {
+                if (bCount [i] == 0 || pCount [i] == 0) continue;
+                var bPart = spilled (bFiles [i], bCount [i]);
+                var pPart = spilled (pFiles [i], pCount [i]);
+                if (bCount [i] > joinBudget && bCount [i] < bSize && pass + 1 < MAX_PASSES) {
+                    graceJoin (bPart, bCount [i], pPart, b_cols, p_cols, buildLeft, pass + 1, rows);
+                } else {
+                    chunkJoin (bPart, pPart, b_cols, p_cols, buildLeft, rows);
+                } // if
+            } // for
+        } finally {
+            for (var f : bFiles) if (f != null) f.delete ();
+            for (var f : pFiles) if (f != null) f.delete ();
+        } // try
+    } // graceJoin
+
+    /************************************************************************************
+     * Join a build partition and a probe partition, holding at most joinBudget build
+     * tuples in memory: the build tuples are hashed a chunk at a time and the probe
+     * partition is streamed once per chunk.
+     *
+     * @param build      the build-side tuples
+     * @param probe      the probe-side tuples
+     * @param b_cols     the join column positions in the build tuples
+     * @param p_cols     the join column positions in the probe tuples
+     * @param buildLeft  whether the build side is the lhs table
+     * @param rows       the list collecting the joined tuples
+     */
+    private static void chunkJoin (Iterable <Comparable []> build, Iterable <Comparable []> probe,
+                                   int [] b_cols, int [] p_cols, boolean buildLeft,
+                                   List <Comparable []> rows)
+    {
+        var it    = build.iterator ();
+        var chunk = new ArrayList <Comparable []> ();
+        while (it.hasNext ()) {
+            chunk.clear ();
+            while (it.hasNext () && chunk.size () < joinBudget) chunk.add (it.next ());
+            var ht = buildHash (chunk, b_cols);
+            for (var p : probe) probeHash (ht, p, p_cols, buildLeft, rows);
+        } // while
+    } // chunkJoin
+
+    /************************************************************************************
+     * Hash partition the tuples on the given columns into the given partition files.  Each
+     * pass of a join mixes the key's hash code with a different constant, so a partition
+     * written by one pass is spread over all the partitions of the next.
+     *
+     * @param tups   the tuples to partition
+     * @param cols   the join column positions in the tuples
+     * @param files  the array to receive the partition files (one per partition)
+     * @param side   the tag ("b" build or "p" probe) used in partition file names
+     * @param pass   the number of the pass
+     * @return  the number of tuples written to each partition
+     */
+    private int [] partition (Iterable <Comparable []> tups, int [] cols, File [] files, String side, int pass)
+        throws IOException
+    {
+        var nParts = files.length;
+        var counts = new int [nParts];
+        var oos    = new ObjectOutputStream [nParts];
+        try {
+            for (var i = 0; i < nParts; i++) {
+                files [i] = File.createTempFile (name + "." + side + pass + "_" + i + ".", SPILL, new File (DIR));
+                oos [i]   = new ObjectOutputStream (new BufferedOutputStream (new FileOutputStream (files [i])));
+            } // for
+            for (var t : tups) {
+                var h = KeyType.mix (keyOf (t, cols).hashCode () + pass * 0x9E3779B9) & 0xffffffffL;
+                var i = (int) (h * nParts >>> 32);                             // multiplicative hashing
+                oos [i].writeObject (t);
+                if (++counts [i] % 1024 == 0) oos [i].reset ();              // drop back-references
+            } // for
+        } finally {
+            for (var o : oos) if (o != null) o.close ();
+        } // try
+        return counts;
+    } // partition
+
+    /************************************************************************************
+     * Return the tuples of a partition file, read from the file each time they are
+     * iterated.  IO errors are thrown as UncheckedIOException.
+     *
+     * @param file  the partition file
+     * @param n     the number of tuples in the file
+     * @return  the tuples of the partition
+     */
+    private static Iterable <Comparable []> spilled (File file, int n)
+    {
+        return () -> new Iterator <> () {
+            private ObjectInputStream ois;
+            private int i = 0;
+
+            public boolean hasNext () { return i < n; }
+
+            public Comparable [] next ()
+            {
+                try {
+                    if (ois == null) ois = new ObjectInputStream (new BufferedInputStream (new FileInputStream (file)));
+                    var t = (Comparable []) ois.readObject ();
+                    if (++i == n) ois.close ();
+                    return t;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException (ex);
+                } catch (ClassNotFoundException ex) {
+                    throw new UncheckedIOException (new IOException (ex));
+                } // try
+            } // next
+        };
+    } // spilled
+
     /************************************************************************************
      * Check the size of the tuple (number of elements in list) as well as the type of
      * each value to ensure it is from the right domain. 
@@ -752,8 +2181,17 @@ public class Table
      */
     private boolean typeCheck (Comparable [] t)
     { 
-        //  T O   B E   I M P L E M E N T E D 
-
+        if (t == null || t.length != domain.length) {
+            Log.error ("typeCheck ERROR: " + name + " has " + domain.length + " attributes");
+            return false;
+        } // if
+        for (var j = 0; j < t.length; j++) {
+            if (t [j] != null && ! domain [j].isInstance (t [j])) {
+                Log.error ("typeCheck ERROR: " + attribute [j] + " = " + t [j] + " is not a " +
+                             domain [j].getSimpleName ());
+                return false;
+            } // if
+        } // for
         return true;
     } // typeCheck
 
@@ -771,7 +2209,7 @@ public class Table
             try {
                 classArray [i] = Class.forName ("java.lang." + className [i]);
             } catch (ClassNotFoundException ex) {
-                out.println ("findClass: " + ex);
+                Log.error ("findClass: " + ex);
             } // try
         } // for
 
@@ -796,5 +2234,45 @@ public class Table
         return obj;
     } // extractDom
 
-} // Table class
+    /************************************************************************************
+     * This class presents a list of entries with strictly ascending keys as a sorted map,
+     * so that an empty TreeMap can be bulk loaded from it (TreeMap.putAll builds its tree
+     * from a sorted map in linear time, rather than putting each key).  Only what putAll
+     * uses is supported.
+     */
+    private static class SortedEntries
+            extends AbstractMap <KeyType, Integer>
+            implements SortedMap <KeyType, Integer>
+    {
+        private final List <Map.Entry <KeyType, Integer>> entries;
+
+        SortedEntries (List <Map.Entry <KeyType, Integer>> _entries)
+        {
+            entries = _entries;
+        } // constructor
+
+        public Comparator <? super KeyType> comparator () { return null; }   // natural order, as TREE_MAP
+
+        public int size () { return entries.size (); }
+
+        public Set <Map.Entry <KeyType, Integer>> entrySet ()
+        {
+            return new AbstractSet <> () {
+                public Iterator <Map.Entry <KeyType, Integer>> iterator () { return entries.iterator (); }
+                public int size () { return entries.size (); }
+            }; // AbstractSet
+        } // entrySet
+
+        public KeyType firstKey () { return entries.get (0).getKey (); }
 
+        public KeyType lastKey () { return entries.get (entries.size () - 1).getKey (); }
+
+        public SortedMap <KeyType, Integer> subMap (KeyType lo, KeyType hi) { throw new UnsupportedOperationException (); }
+
+        public SortedMap <KeyType, Integer> headMap (KeyType hi) { throw new UnsupportedOperationException (); }
+
+        public SortedMap <KeyType, Integer> tailMap (KeyType lo) { throw new UnsupportedOperationException (); }
+
+    } // SortedEntries inner class
+
+} // Table class
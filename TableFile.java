@@ -0,0 +1,429 @@
+/*****************************************************************************************
+ * @file  TableFile.java
+ *
+ * @author   John Miller
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/*****************************************************************************************
+ * The TableFile class reads and writes the page-oriented binary file format for tables.
+ * A file consists of fixed-size pages.  The leading header pages hold the magic number,
+ * the schema (name, attributes, domains, key), the table's storage options, the
+ * number of tuples and data pages and a CRC32 of the data pages.  Each data page is a slotted page: a count of the
+ * tuples on the page and a directory of their offsets grow from the front, while the
+ * tuples themselves are packed from the back.  A tuple is a null bitmap followed by its
+ * non-null values, each encoded according to its attribute's domain (e.g., 4 bytes for
+ * an Integer, a length-prefixed UTF-8 string for a String).  Any tuple can be decoded
+ * from its page alone, so pages may be read in bulk, memory-mapped or cached.
+ */
+public class TableFile
+{
+    /** The size of each page in bytes
+     */
+    public static final int PAGE = 4096;
+
+    /** The magic number at the start of every table file ("RDBF")
+     */
+    public static final int MAGIC = 0x52444246;
+
+    /** The version of the file format
+     */
+    private static final short VERSION = 2;
+
+    /*************************************************************************************
+     * This class holds the header of a table file: the table's schema and options, and
+     * the layout of the file.
+     */
+    public static class Header
+    {
+        String    name;
+        String [] attribute;
+        Class []  domain;
+        String [] key;
+        String    mapType;                                                   // Table.MapType name
+        String    layout;                                                    // Table.Layout name
+        String [] encoded;                                                   // dictionary encoded attributes
+        String [] indexed;                                                   // "attributes:MapType" per secondary index
+        int       nTuples;
+        int       nPages;                                                    // number of data pages
+        int       lastRows;                                                  // tuples on the last data page
+        int       headerPages;                                               // number of header pages
+        int       checksum;                                                  // CRC32 of the data pages
+
+        /*********************************************************************************
+         * Return the byte offset of the given data page within the file.
+         * @param p  the data page number
+         * @return  the offset of the page
+         */
+        long pageOffset (int p)
+        {
+            return (long) (headerPages + p) * PAGE;
+        } // pageOffset
+
+        /*********************************************************************************
+         * Return the number of tuples on data page p.  Only the tuples the header counts
+         * on the last page are valid: an append to the page may have reached the file
+         * without its header.
+         * @param buf   the buffer holding the page
+         * @param base  the offset of the page in the buffer
+         * @param p     the data page number
+         * @return  the number of tuples on the page
+         */
+        int rows (ByteBuffer buf, int base, int p)
+        {
+            var n = rowsOnPage (buf, base);
+            return (p == nPages - 1) ? Math.min (n, lastRows) : n;
+        } // rows
+
+    } // Header class
+
+    /*************************************************************************************
+     * Write the tuples to the given file in the table file format.  The file is written
+     * next to its final location and then moved into place, so a failed save leaves the
+     * previous file intact.
+     * @param file    the file to write
+     * @param h       the header (the counts of tuples and pages and the checksum are filled in)
+     * @param tuples  the tuples to write
+     */
+    public static void write (File file, Header h, List <Comparable []> tuples)
+           throws IOException
+    {
+        var tmp = new File (file.getPath () + ".tmp");
+        h.nTuples = tuples.size ();
+        var head  = encodeHeader (h);                                        // provisional nPages
+        h.headerPages = head.length / PAGE;
+
+        try (var ch = FileChannel.open (tmp.toPath (), CREATE, WRITE, TRUNCATE_EXISTING)) {
+            var page = newPage ();
+            var row  = ByteBuffer.allocate (256);
+            var pos  = (long) h.headerPages * PAGE;
+            var crc  = new CRC32 ();
+            h.nPages = 0;
+            for (var t : tuples) {
+                row = encodeRow (row, t, h.domain);
+                if (row.remaining () + 4 > PAGE) throw new IOException ("TableFile: tuple too large for a page");
+                if (! addRow (page, row)) {
+                    crc.update (page.clear ());
+                    pos += writePage (ch, page, pos);
+                    h.nPages++;
+                    page = newPage ();
+                    addRow (page, row);
+                } // if
+            } // for
+            h.lastRows = page.getShort (0);
+            if (h.lastRows > 0) { crc.update (page.clear ()); writePage (ch, page, pos); h.nPages++; }
+            h.checksum = (int) crc.getValue ();
+
+            ch.write (ByteBuffer.wrap (encodeHeader (h)), 0);                 // final header
+            ch.force (true);
+        } // try
+        Files.move (tmp.toPath (), file.toPath (), StandardCopyOption.REPLACE_EXISTING,
+                                                   StandardCopyOption.ATOMIC_MOVE);
+    } // write
+
+    /*************************************************************************************
+     * Determine whether the buffer starts with the table file magic number.
+     * @param buf  the buffer holding (the start of) a file
+     * @return  whether it is in the table file format
+     */
+    public static boolean isTableFile (ByteBuffer buf)
+    {
+        return buf.limit () >= 4 && buf.getInt (0) == MAGIC;
+    } // isTableFile
+
+    /*************************************************************************************
+     * Read the header from the buffer holding (at least) the header pages of a file.
+     * @param buf  the buffer holding the file
+     * @return  the header
+     */
+    public static Header readHeader (ByteBuffer buf)
+           throws IOException
+    {
+        if (! isTableFile (buf)) throw new IOException ("TableFile: not a table file");
+        var head = new byte [Math.min (buf.limit (), buf.getInt (10) * PAGE)];  // copy the header pages only
+        buf.get (0, head);
+        return readHeader (new DataInputStream (new ByteArrayInputStream (head)));
+    } // readHeader
+
+    /*************************************************************************************
+     * Read the header from the start of a file.
+     * @param in  the input stream positioned at the start of the file
+     * @return  the header
+     */
+    public static Header readHeader (DataInputStream in)
+           throws IOException
+    {
+        if (in.readInt () != MAGIC) throw new IOException ("TableFile: not a table file");
+        if (in.readShort () != VERSION) throw new IOException ("TableFile: unsupported version");
+        if (in.readInt () != PAGE) throw new IOException ("TableFile: unsupported page size");
+        var h = new Header ();
+        h.headerPages = in.readInt ();
+        h.nPages      = in.readInt ();
+        h.nTuples     = in.readInt ();
+        h.lastRows    = in.readInt ();
+        h.checksum    = in.readInt ();
+        h.name        = in.readUTF ();
+        h.attribute   = readStrings (in);
+        var dom       = readStrings (in);
+        h.domain      = new Class [dom.length];
+        for (var j = 0; j < dom.length; j++) {
+            try {
+                h.domain [j] = Class.forName ("java.lang." + dom [j]);
+            } catch (ClassNotFoundException ex) {
+                throw new IOException ("TableFile: unknown domain " + dom [j]);
+            } // try
+        } // for
+        h.key     = readStrings (in);
+        h.mapType = in.readUTF ();
+        h.layout  = in.readUTF ();
+        h.encoded = readStrings (in);
+        h.indexed = readStrings (in);
+        return h;
+    } // readHeader
+
+    /*************************************************************************************
+     * Return the number of tuples on the data page starting at offset base.
+     * @param buf   the buffer holding the page
+     * @param base  the offset of the page in the buffer
+     * @return  the number of tuples on the page
+     */
+    public static int rowsOnPage (ByteBuffer buf, int base)
+    {
+        return buf.getShort (base);
+    } // rowsOnPage
+
+    /*************************************************************************************
+     * Decode the k-th tuple on the data page starting at offset base.
+     * @param buf     the buffer holding the page
+     * @param base    the offset of the page in the buffer
+     * @param k       the tuple's slot on the page
+     * @param domain  the attribute domains
+     * @return  the tuple
+     */
+    public static Comparable [] decodeRow (ByteBuffer buf, int base, int k, Class [] domain)
+    {
+        return decodeAt (buf, base + Short.toUnsignedInt (buf.getShort (base + 2 + 2 * k)), domain);
+    } // decodeRow
+
+    /*************************************************************************************
+     * Decode the tuple encoded (by encodeRow) at the given position of the buffer.
+     * @param buf     the buffer holding the tuple
+     * @param pos     the position of the tuple in the buffer
+     * @param domain  the attribute domains
+     * @return  the tuple
+     */
+    static Comparable [] decodeAt (ByteBuffer buf, int pos, Class [] domain)
+    {
+        var tup   = new Comparable [domain.length];
+        var nulls = pos;
+        pos += (domain.length + 7) / 8;
+        for (var j = 0; j < domain.length; j++) {
+            if ((buf.get (nulls + j / 8) & (1 << (j % 8))) != 0) continue;   // null value
+            var d = domain [j];
+            if (d == Integer.class)        { tup [j] = buf.getInt (pos);    pos += 4; }
+            else if (d == String.class) {
+                var len   = Short.toUnsignedInt (buf.getShort (pos));
+                var bytes = new byte [len];
+                buf.get (pos + 2, bytes);
+                tup [j] = new String (bytes, StandardCharsets.UTF_8);
+                pos += 2 + len;
+            }
+            else if (d == Long.class)      { tup [j] = buf.getLong (pos);   pos += 8; }
+            else if (d == Double.class)    { tup [j] = buf.getDouble (pos); pos += 8; }
+            else if (d == Float.class)     { tup [j] = buf.getFloat (pos);  pos += 4; }
+            else if (d == Short.class)     { tup [j] = buf.getShort (pos);  pos += 2; }
+            else if (d == Byte.class)      { tup [j] = buf.get (pos);       pos += 1; }
+            else if (d == Character.class) { tup [j] = buf.getChar (pos);   pos += 2; }
+        } // for
+        return tup;
+    } // decodeAt
+
+    /*************************************************************************************
+     * Decode all the data pages of a file held in the buffer, in order.
+     * @param buf  the buffer holding the whole file
+     * @param h    the file's header
+     * @return  the tuples
+     */
+    public static List <Comparable []> readTuples (ByteBuffer buf, Header h)
+    {
+        var tuples = new ArrayList <Comparable []> (h.nTuples);
+        for (var p = 0; p < h.nPages; p++) {
+            var base = (int) h.pageOffset (p);
+            var n    = h.rows (buf, base, p);
+            for (var k = 0; k < n; k++) tuples.add (decodeRow (buf, base, k, h.domain));
+        } // for
+        return tuples;
+    } // readTuples
+
+    /*************************************************************************************
+     * Encode tuple t into the row buffer according to the domains, growing the buffer
+     * as needed.  Values are converted to their attribute's domain.
+     * @param row     the buffer to reuse
+     * @param t       the tuple to encode
+     * @param domain  the attribute domains
+     * @return  the buffer holding the encoded tuple, flipped for reading
+     */
+    static ByteBuffer encodeRow (ByteBuffer row, Comparable [] t, Class [] domain)
+    {
+        while (true) {
+            try {
+                row.clear ();
+                var nb   = (domain.length + 7) / 8;
+                var bits = new byte [nb];
+                for (var j = 0; j < domain.length; j++) if (t [j] == null) bits [j / 8] |= 1 << (j % 8);
+                row.put (bits);
+                for (var j = 0; j < domain.length; j++) {
+                    var v = t [j];
+                    if (v == null) continue;
+                    var d = domain [j];
+                    if (d == Integer.class)        row.putInt (((Number) v).intValue ());
+                    else if (d == String.class) {
+                        var bytes = v.toString ().getBytes (StandardCharsets.UTF_8);
+                        if (bytes.length > 0xffff) throw new IllegalArgumentException ("TableFile: string too long");
+                        row.putShort ((short) bytes.length).put (bytes);
+                    }
+                    else if (d == Long.class)      row.putLong (((Number) v).longValue ());
+                    else if (d == Double.class)    row.putDouble (((Number) v).doubleValue ());
+                    else if (d == Float.class)     row.putFloat (((Number) v).floatValue ());
+                    else if (d == Short.class)     row.putShort (((Number) v).shortValue ());
+                    else if (d == Byte.class)      row.put (((Number) v).byteValue ());
+                    else if (d == Character.class) row.putChar ((Character) v);
+                    else throw new IllegalArgumentException ("TableFile: unsupported domain " + d);
+                } // for
+                return row.flip ();
+            } catch (java.nio.BufferOverflowException ex) {
+                row = ByteBuffer.allocate (2 * row.capacity ());
+            } // try
+        } // while
+    } // encodeRow
+
+    /*************************************************************************************
+     * Make an empty data page.
+     * @return  the page
+     */
+    static ByteBuffer newPage ()
+    {
+        var page = ByteBuffer.allocate (PAGE);
+        page.putShort (0, (short) 0);
+        return page;
+    } // newPage
+
+    /*************************************************************************************
+     * Add the encoded tuple to the page if it fits: its slot is added to the directory
+     * at the front and its bytes are packed below the previous tuple.
+     * @param page  the page
+     * @param row   the encoded tuple
+     * @return  whether the tuple fit on the page
+     */
+    static boolean addRow (ByteBuffer page, ByteBuffer row)
+    {
+        var n    = page.getShort (0);
+        var low  = (n == 0) ? PAGE : Short.toUnsignedInt (page.getShort (2 + 2 * (n - 1)));
+        var len  = row.remaining ();
+        var free = low - (2 + 2 * n);
+        if (len + 2 > free) return false;
+        var start = low - len;
+        page.put (start, row, row.position (), len);
+        page.putShort (2 + 2 * n, (short) start);
+        page.putShort (0, (short) (n + 1));
+        return true;
+    } // addRow
+
+    /*************************************************************************************
+     * Write the page to the channel at the given position.
+     * @param ch    the file channel
+     * @param page  the page
+     * @param pos   the file position
+     * @return  the number of bytes written (PAGE)
+     */
+    static int writePage (FileChannel ch, ByteBuffer page, long pos)
+           throws IOException
+    {
+        page.clear ();
+        while (page.hasRemaining ()) ch.write (page, pos + page.position ());
+        return PAGE;
+    } // writePage
+
+    /*************************************************************************************
+     * Rewrite the header of a table file in place, e.g., after tuples were appended to
+     * its pages.  The header must still fit in the file's header pages.
+     * @param ch  the file's channel
+     * @param h   the header
+     */
+    static void writeHeader (FileChannel ch, Header h)
+           throws IOException
+    {
+        var head = encodeHeader (h);
+        if (head.length != h.headerPages * PAGE) throw new IOException ("TableFile: header no longer fits");
+        var buf = ByteBuffer.wrap (head);
+        while (buf.hasRemaining ()) ch.write (buf, buf.position ());
+    } // writeHeader
+
+    /*************************************************************************************
+     * Encode the header, padded to a whole number of pages.
+     * @param h  the header
+     * @return  the encoded header
+     */
+    private static byte [] encodeHeader (Header h)
+           throws IOException
+    {
+        var bytes = new ByteArrayOutputStream ();
+        var out   = new DataOutputStream (bytes);
+        out.writeInt (MAGIC);
+        out.writeShort (VERSION);
+        out.writeInt (PAGE);
+        out.writeInt (0);                                                    // header pages (patched)
+        out.writeInt (h.nPages);
+        out.writeInt (h.nTuples);
+        out.writeInt (h.lastRows);
+        out.writeInt (h.checksum);
+        out.writeUTF (h.name);
+        writeStrings (out, h.attribute);
+        var dom = new String [h.domain.length];
+        for (var j = 0; j < dom.length; j++) dom [j] = h.domain [j].getSimpleName ();
+        writeStrings (out, dom);
+        writeStrings (out, h.key);
+        out.writeUTF (h.mapType);
+        out.writeUTF (h.layout);
+        writeStrings (out, h.encoded);
+        writeStrings (out, h.indexed);
+        out.flush ();
+
+        var pages = (bytes.size () + PAGE - 1) / PAGE;
+        var head  = Arrays.copyOf (bytes.toByteArray (), pages * PAGE);
+        ByteBuffer.wrap (head).putInt (10, pages);
+        return head;
+    } // encodeHeader
+
+    /*************************************************************************************
+     * Write an array of strings preceded by its length.
+     */
+    private static void writeStrings (DataOutputStream out, String [] strs)
+           throws IOException
+    {
+        out.writeInt (strs.length);
+        for (var s : strs) out.writeUTF (s);
+    } // writeStrings
+
+    /*************************************************************************************
+     * Read an array of strings preceded by its length.
+     */
+    private static String [] readStrings (DataInputStream in)
+           throws IOException
+    {
+        var strs = new String [in.readInt ()];
+        for (var j = 0; j < strs.length; j++) strs [j] = in.readUTF ();
+        return strs;
+    } // readStrings
+
+} // TableFile class
+
@@ -70,6 +70,17 @@ public class TestTupleGenerator
             } // for
             out.println ();
         } // for
+
+        //--------------------- bulk load generated tuples into tables
+
+        var student   = new Table ("Student", "id name address status",
+                                   "Integer String String String", "id", Table.MapType.BPTREE_MAP);
+        var professor = new Table ("Professor", "id name deptId",
+                                   "Integer String String", "id", Table.MapType.OPEN_MAP);
+        student.insertAll (resultTest [0]);
+        professor.insertAll (resultTest [1]);
+        student.select (new KeyType (resultTest [0][0][0])).print ();
+        professor.select (new KeyType (resultTest [1][0][0])).print ();
     } // main
 
 } // TestTupleGenerator
@@ -33,6 +33,28 @@ public class TupleGeneratorImpl
     private HashMap <String, String []> tablepks = new HashMap <> ();
 
     HashMap <String, String [][]> tablefks = new HashMap <> ();
+
+    /** The seed for the random number generator (null for a different seed each time)
+     */
+    private final Long seed;
+
+    /*******************************************************************************************
+     * Construct a tuple generator that generates different tuples each time.
+     */
+    public TupleGeneratorImpl ()
+    {
+        seed = null;
+    } // constructor
+
+    /*******************************************************************************************
+     * Construct a tuple generator that generates the same tuples for the same seed, e.g.,
+     * for reproducible benchmarks.
+     * @param _seed  the seed for the random number generator
+     */
+    public TupleGeneratorImpl (long _seed)
+    {
+        seed = _seed;
+    } // constructor
     
     /*******************************************************************************************
      * Adding relation to Schema.
@@ -75,7 +97,7 @@ public class TupleGeneratorImpl
      */
     public Comparable [][][] generate (int [] tuples)
     {
-        var rand       = new Random ();
+        var rand       = (seed == null) ? new Random () : new Random (seed);
         var tableName  = "";
         var pKeys      = new HashSet <String> ();
         var pKeyValues = new HashSet <Comparable <?>> ();
@@ -157,7 +179,7 @@ public class TupleGeneratorImpl
                     for (var n = 0; n < fks.length; n++) {
 
                         if ( ! fks[n][0].contains (" ")) {
-                            fkIndex.add (n, fks[n][0]);
+                            if (j == 0) fkIndex.add (fks[n][0]);              // once per table
                             var fkTable = result.get (fks[n][1]);
                             int s;
                             for (s = 0; s < attribute.length; s++) {
@@ -173,8 +195,8 @@ public class TupleGeneratorImpl
                         } else {
                             String [] sfks = fks[n][0].split (" ");
                             String [] rfks = fks[n][2].split (" ");
-                            for (var z = 0; z < fks[n][0].split (" ").length; z++) {
-                                fkIndex.add (n+z, fks[n][0].split (" ")[z]);
+                            for (var z = 0; j == 0 && z < sfks.length; z++) {
+                                fkIndex.add (sfks[z]);
                             } // for
                             Comparable [][] fkTable = result.get (fks[n][1]);
                             if (fkTable == null) {
@@ -0,0 +1,195 @@
+/*****************************************************************************************
+ * @file  WriteAheadLog.java
+ *
+ * @author   John Miller
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/*****************************************************************************************
+ * The WriteAheadLog class keeps an append-only log of the changes made to a table since
+ * it was last saved, so that inserts are durable without rewriting the table file.  Each
+ * record holds its length, the operation, the position of the tuple in the table, the
+ * tuple (encoded as in TableFile) and a CRC32 checksum.  Records are buffered and written
+ * a group at a time (group commit); when the log is forced to disk depends on its Sync
+ * policy.  Replaying a log stops at the first incomplete or corrupt record, which is
+ * what a crash in the middle of a write leaves behind.
+ */
+public class WriteAheadLog
+{
+    /** Operation code for an inserted tuple (delete and update are reserved)
+     */
+    public static final byte INSERT = 1;
+
+    /** When the log is forced to disk: never (left to the operating system), once per
+     *  group of records, or after every record.
+     */
+    public enum Sync { NONE, GROUP, ALWAYS }
+
+    /** The number of records in a group unless given
+     */
+    public static final int GROUP_SIZE = 64;
+
+    /** The channel the log is appended to
+     */
+    private final FileChannel ch;
+
+    /** The attribute domains of the logged table
+     */
+    private final Class [] domain;
+
+    /** The sync policy
+     */
+    private final Sync sync;
+
+    /** The number of records written (and forced) together
+     */
+    private final int group;
+
+    /** The records not yet written, and how many there are
+     */
+    private ByteBuffer pending = ByteBuffer.allocate (8192);
+    private int nPending = 0;
+
+    /** Buffer for encoding tuples
+     */
+    private ByteBuffer row = ByteBuffer.allocate (256);
+
+    /** Checksum of records
+     */
+    private final CRC32 crc = new CRC32 ();
+
+    /*************************************************************************************
+     * Open (or create) the log in the given file, appending after any existing records.
+     * @param file     the log file
+     * @param _domain  the attribute domains of the logged table
+     * @param _sync    the sync policy
+     * @param _group   the number of records per group commit
+     */
+    public WriteAheadLog (File file, Class [] _domain, Sync _sync, int _group)
+           throws IOException
+    {
+        ch     = FileChannel.open (file.toPath (), CREATE, WRITE, APPEND);
+        domain = _domain;
+        sync   = _sync;
+        group  = (_sync == Sync.ALWAYS) ? 1 : _group;
+    } // constructor
+
+    /*************************************************************************************
+     * Append a record to the log, writing the pending group once it is full.
+     * @param op   the operation (e.g., INSERT)
+     * @param pos  the position of the tuple in the table
+     * @param t    the tuple
+     */
+    public void append (byte op, int pos, Comparable [] t)
+           throws IOException
+    {
+        row = TableFile.encodeRow (row, t, domain);
+        var len = 1 + 4 + row.remaining ();
+        if (pending.remaining () < len + 8) {
+            if (nPending > 0) write (false);
+            if (pending.capacity () < len + 8) pending = ByteBuffer.allocate (2 * (len + 8));
+        } // if
+        var start = pending.position ();
+        pending.putInt (len).put (op).putInt (pos).put (row);
+        crc.reset ();
+        crc.update (pending.array (), start + 4, len);
+        pending.putInt ((int) crc.getValue ());
+        if (++nPending >= group) write (sync != Sync.NONE);
+    } // append
+
+    /*************************************************************************************
+     * Write the pending records and, unless the sync policy is NONE, force them to disk.
+     */
+    public void commit ()
+           throws IOException
+    {
+        write (sync != Sync.NONE);
+    } // commit
+
+    /*************************************************************************************
+     * Discard the log's records, e.g., once the table has been saved.
+     */
+    public void truncate ()
+           throws IOException
+    {
+        pending.clear ();
+        nPending = 0;
+        ch.truncate (0);
+        ch.force (true);
+    } // truncate
+
+    /*************************************************************************************
+     * Commit the pending records and close the log.
+     */
+    public void close ()
+           throws IOException
+    {
+        commit ();
+        ch.close ();
+    } // close
+
+    /*************************************************************************************
+     * The Redo interface applies a logged record during replay.
+     */
+    public interface Redo
+    {
+        void apply (byte op, int pos, Comparable [] t);
+    } // Redo interface
+
+    /*************************************************************************************
+     * Replay the records of the given log file in order.  An incomplete or corrupt record
+     * ends the log: it and anything after it are cut off the file.
+     * @param file    the log file
+     * @param domain  the attribute domains of the logged table
+     * @param redo    the action applying each record
+     * @return  the number of records replayed
+     */
+    public static int replay (File file, Class [] domain, Redo redo)
+           throws IOException
+    {
+        if (! file.exists ()) return 0;
+        try (var ch = FileChannel.open (file.toPath (), READ, WRITE)) {
+            var buf = ByteBuffer.allocate ((int) ch.size ());
+            while (buf.hasRemaining () && ch.read (buf) >= 0) ;
+            buf.flip ();
+            var crc = new CRC32 ();
+            var n   = 0;
+            var end = 0;
+            while (buf.limit () - end >= 4) {
+                var len = buf.getInt (end);
+                if (len < 5 || len > buf.limit () - end - 8) break;           // torn record
+                crc.reset ();
+                crc.update (buf.array (), end + 4, len);
+                if ((int) crc.getValue () != buf.getInt (end + 4 + len)) break;
+                redo.apply (buf.get (end + 4), buf.getInt (end + 5), TableFile.decodeAt (buf, end + 9, domain));
+                end += 4 + len + 4;
+                n++;
+            } // while
+            if (end < buf.limit ()) ch.truncate (end);
+            return n;
+        } // try
+    } // replay
+
+    /*************************************************************************************
+     * Write the pending records to the log file.
+     * @param force  whether to force them to disk
+     */
+    private void write (boolean force)
+           throws IOException
+    {
+        pending.flip ();
+        while (pending.hasRemaining ()) ch.write (pending);
+        pending.clear ();
+        nPending = 0;
+        if (force) ch.force (false);
+    } // write
+
+} // WriteAheadLog class
+
@@ -0,0 +1,167 @@
+/*****************************************************************************************
+ * @file  MapOps.java
+ *
+ * @author   John Miller
+ */
+
+import java.util.*;
+
+import bench.IndexOps;
+
+/*****************************************************************************************
+ * The MapOps class implements the benchmarks' view of an index (IndexOps) for the map
+ * types a Table may be indexed with: TreeMap, LinHashMap, BpTreeMap and OpenHashMap.
+ */
+public class MapOps
+       implements IndexOps
+{
+    /** The seed for generating keys and probes
+     */
+    private static final long SEED = 6370;
+
+    /** The number of probes (a power of two); probes are used round robin
+     */
+    private static final int PROBES = 1 << 16;
+
+    private String mapType;
+    private int    slots;
+    private double threshold;
+
+    private KeyType []      keys;                                            // in insertion order
+    private KeyType []      hits, misses;
+    private Map <KeyType, Integer> map;                                      // key -> row id, as in Table
+    private int i = 0, j = 0;
+
+    /*************************************************************************************
+     * Generate the keys and probes and build the map (see IndexOps.setup).
+     */
+    public void setup (String _mapType, int size, String dist, int _slots, double _threshold)
+    {
+        mapType   = _mapType;
+        slots     = _slots;
+        threshold = _threshold;
+        var rand  = new Random (SEED);
+
+        var vals = new int [size];
+        var used = new HashSet <Integer> ();
+        if (dist.equals ("SEQUENTIAL")) {
+            for (var k = 0; k < size; k++) vals [k] = k;
+        } else {
+            for (var k = 0; k < size; k++) {
+                int v;
+                do v = rand.nextInt (Integer.MAX_VALUE); while (! used.add (v));
+                vals [k] = v;
+            } // for
+        } // if
+
+        keys = new KeyType [size];
+        for (var k = 0; k < size; k++) keys [k] = KeyType.of (vals [k]);
+
+        hits   = new KeyType [PROBES];
+        misses = new KeyType [PROBES];
+        var zipf = dist.equals ("SKEWED") ? zipfCdf (size, 0.99) : null;
+        for (var k = 0; k < PROBES; k++) {
+            var r = (zipf == null) ? rand.nextInt (size) : rank (zipf, rand.nextDouble ());
+            hits [k] = KeyType.of (vals [r]);                                // equal, not identical, keys
+            int v;
+            if (dist.equals ("SEQUENTIAL")) v = size + rand.nextInt (size);
+            else do v = rand.nextInt (Integer.MAX_VALUE); while (used.contains (v));
+            misses [k] = KeyType.of (v);
+        } // for
+
+        putAll ();
+    } // setup
+
+    public int putAll ()
+    {
+        map = makeMap ();
+        if (map instanceof OpenHashMap <KeyType, Integer> oh) {
+            for (var k = 0; k < keys.length; k++) oh.putRow (keys [k], k);
+        } else {
+            for (var k = 0; k < keys.length; k++) map.put (keys [k], k);
+        } // if
+        return map.size ();
+    } // putAll
+
+    public int getHit ()  { return rowOf (hits [i++ & (PROBES - 1)]); }
+
+    public int getMiss () { return rowOf (misses [j++ & (PROBES - 1)]); }
+
+    public int iterate ()
+    {
+        var n = 0;
+        for (var e : map.entrySet ()) if (e.getValue () != null) n++;
+        return n;
+    } // iterate
+
+    public long accesses ()
+    {
+        if (map instanceof LinHashMap <KeyType, Integer> lh) return lh.getCount ();
+        if (map instanceof BpTreeMap <KeyType, Integer> bpt) return bpt.getCount ();
+        if (map instanceof OpenHashMap <KeyType, Integer> oh) return oh.getCount ();
+        return 0;
+    } // accesses
+
+    public void resetAccesses ()
+    {
+        if (map instanceof LinHashMap <KeyType, Integer> lh) lh.resetCount ();
+        if (map instanceof BpTreeMap <KeyType, Integer> bpt) bpt.resetCount ();
+        if (map instanceof OpenHashMap <KeyType, Integer> oh) oh.resetCount ();
+    } // resetAccesses
+
+    /*************************************************************************************
+     * Look up the row id of the given key (as Table does, without boxing for OPEN_MAP).
+     * @param k  the key
+     * @return  the row id, or -1 if the key is not in the map
+     */
+    private int rowOf (KeyType k)
+    {
+        if (map instanceof OpenHashMap <KeyType, Integer> oh) return oh.getRow (k);
+        var r = map.get (k);
+        return (r == null) ? -1 : r;
+    } // rowOf
+
+    /*************************************************************************************
+     * Make an empty map of the benchmarked type.
+     * @return  the map
+     */
+    private Map <KeyType, Integer> makeMap ()
+    {
+        return switch (mapType) {
+        case "TREE_MAP"    -> new TreeMap <> ();
+        case "LINHASH_MAP" -> new LinHashMap <> (KeyType.class, Integer.class, slots, threshold);
+        case "BPTREE_MAP"  -> new BpTreeMap <> (KeyType.class, Integer.class);
+        case "OPEN_MAP"    -> OpenHashMap.forRows ();
+        default            -> throw new IllegalArgumentException ("MapOps: unknown map type " + mapType);
+        }; // switch
+    } // makeMap
+
+    /*************************************************************************************
+     * Return the cumulative distribution of a Zipf distribution over n ranks.
+     * @param n      the number of ranks
+     * @param theta  the skew (0 is uniform)
+     * @return  the cumulative probabilities
+     */
+    private static double [] zipfCdf (int n, double theta)
+    {
+        var cdf = new double [n];
+        var sum = 0.0;
+        for (var r = 0; r < n; r++) cdf [r] = sum += 1.0 / Math.pow (r + 1, theta);
+        for (var r = 0; r < n; r++) cdf [r] /= sum;
+        return cdf;
+    } // zipfCdf
+
+    /*************************************************************************************
+     * Return the rank whose cumulative probability first reaches u.
+     * @param cdf  the cumulative probabilities
+     * @param u    a uniform random number in [0, 1)
+     * @return  the rank
+     */
+    private static int rank (double [] cdf, double u)
+    {
+        var r = Arrays.binarySearch (cdf, u);
+        return Math.min ((r < 0) ? -r - 1 : r, cdf.length - 1);
+    } // rank
+
+} // MapOps class
+
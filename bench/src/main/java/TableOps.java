@@ -0,0 +1,72 @@
+/*****************************************************************************************
+ * @file  TableOps.java
+ *
+ * @author   John Miller
+ */
+
+import bench.RelOps;
+
+/*****************************************************************************************
+ * The TableOps class implements the benchmarks' view of the relational operators (RelOps)
+ * on Tables filled by TupleGeneratorImpl.  It lives in the default package to reach
+ * Table; the benchmarks load it by name (see RelOps.load).
+ */
+public class TableOps
+       implements RelOps
+{
+    /** The seed for generating tuples, so every run measures the same tables
+     */
+    private static final long SEED = 6370;
+
+    private Table student, student2, transcript;
+
+    private Comparable status, id;
+
+    /*************************************************************************************
+     * Generate and load the benchmark tables (see RelOps.setup).
+     * @param rows     the number of tuples per table
+     * @param mapType  the name of the Table.MapType to index the tables with
+     */
+    public void setup (int rows, String mapType)
+    {
+        Log.setLevel (Log.Level.OFF);
+        var mType = Table.MapType.valueOf (mapType);
+        var gen   = new TupleGeneratorImpl (SEED);
+        gen.addRelSchema ("Student", "id name address status", "Integer String String String", "id", null);
+        gen.addRelSchema ("Transcript", "studId crsCode semester grade", "Integer String String String",
+                          "studId crsCode semester", new String [][] {{ "studId", "Student", "id" }});
+        var tups = gen.generate (new int [] { rows, rows });
+
+        student    = new Table ("Student", "id name address status", "Integer String String String", "id", mType);
+        student2   = new Table ("Student2", "id name address status", "Integer String String String", "id", mType);
+        transcript = new Table ("Transcript", "studId crsCode semester grade", "Integer String String String",
+                                "studId crsCode semester", mType);
+        student.insertAll (tups [0]);
+        var half = new Comparable [(rows + 1) / 2][];
+        for (var i = 0; i < half.length; i++) half [i] = tups [0][2 * i];
+        student2.insertAll (half);
+        transcript.insertAll (tups [1]);
+
+        var mid = tups [0][rows / 2];
+        id      = mid [0];
+        status  = mid [3];
+    } // setup
+
+    public Object select ()    { return student.select (t -> t [3].equals (status)); }
+
+    public Object selectKey () { return student.select (KeyType.of (id)); }
+
+    public Object project ()   { return student.project ("name address"); }
+
+    public Object union ()     { return student.union (student2); }
+
+    public Object minus ()     { return student.minus (student2); }
+
+    public Object join ()      { return transcript.join ("studId", "id", student); }
+
+    public Object iJoin ()     { return transcript.i_join ("studId", "id", student); }
+
+    public Object hJoin ()     { return transcript.h_join ("studId", "id", student); }
+
+} // TableOps class
+
@@ -0,0 +1,111 @@
+/*****************************************************************************************
+ * @file  IndexBench.java
+ *
+ * @author   John Miller
+ */
+
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/*****************************************************************************************
+ * The IndexBench class compares the maps a Table may be indexed with (LinHashMap, TreeMap,
+ * BpTreeMap and OpenHashMap) for building (put), get hit, get miss and iteration, at
+ * several sizes and key distributions.  The gets also report the number of buckets
+ * (LinHashMap), nodes (BpTreeMap) or slots (OpenHashMap) accessed, so that SLOTS and
+ * THRESHOLD may be tuned, e.g.,
+ *     bench/Jmh/run -p mapType=LINHASH_MAP -p slots=2,4,8,16 -p threshold=0.8,1.2,2.0 IndexBench
+ */
+@State (Scope.Benchmark)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class IndexBench
+{
+    @Param ({ "LINHASH_MAP", "TREE_MAP", "BPTREE_MAP", "OPEN_MAP" })
+    public String mapType;
+
+    @Param ({ "1000", "100000", "1000000" })
+    public int size;
+
+    @Param ({ "SEQUENTIAL", "RANDOM", "SKEWED" })
+    public String dist;
+
+    /** The number of slots per LinHashMap bucket (ignored by the other maps)
+     */
+    @Param ({ "4" })
+    public int slots;
+
+    /** The LinHashMap load factor threshold (ignored by the other maps)
+     */
+    @Param ({ "1.2" })
+    public double threshold;
+
+    private IndexOps ops;
+
+    /*************************************************************************************
+     * The counters reported alongside the gets: the accesses (buckets or nodes) and the
+     * gets made in the iteration; their ratio is the average accesses per get.
+     */
+    @State (Scope.Thread)
+    @AuxCounters (AuxCounters.Type.EVENTS)
+    public static class Accesses
+    {
+        public long accesses;
+        public long gets;
+
+        @Setup (Level.Iteration)
+        public void reset ()
+        {
+            accesses = 0;
+            gets     = 0;
+        } // reset
+    } // Accesses class
+
+    @Setup (Level.Trial)
+    public void setup ()
+    {
+        ops = IndexOps.load ();
+        ops.setup (mapType, size, dist, slots, threshold);
+    } // setup
+
+    @Setup (Level.Iteration)
+    public void resetAccesses ()
+    {
+        ops.resetAccesses ();
+    } // resetAccesses
+
+    @Benchmark @BenchmarkMode (Mode.AverageTime) @OutputTimeUnit (TimeUnit.MILLISECONDS)
+    public int put ()
+    {
+        return ops.putAll ();
+    } // put
+
+    @Benchmark @BenchmarkMode (Mode.Throughput) @OutputTimeUnit (TimeUnit.MICROSECONDS)
+    public int getHit (Accesses c)
+    {
+        c.gets++;
+        var v = ops.getHit ();
+        c.accesses = ops.accesses ();
+        return v;
+    } // getHit
+
+    @Benchmark @BenchmarkMode (Mode.Throughput) @OutputTimeUnit (TimeUnit.MICROSECONDS)
+    public int getMiss (Accesses c)
+    {
+        c.gets++;
+        var v = ops.getMiss ();
+        c.accesses = ops.accesses ();
+        return v;
+    } // getMiss
+
+    @Benchmark @BenchmarkMode (Mode.AverageTime) @OutputTimeUnit (TimeUnit.MILLISECONDS)
+    public int iterate ()
+    {
+        return ops.iterate ();
+    } // iterate
+
+} // IndexBench class
+
@@ -0,0 +1,63 @@
+/*****************************************************************************************
+ * @file  IndexOps.java
+ *
+ * @author   John Miller
+ */
+
+package bench;
+
+/*****************************************************************************************
+ * The IndexOps interface is the view of an index (a Map <KeyType, Integer> from keys to
+ * Integer row ids, as Table keeps) taken by IndexBench.  As for RelOps, the maps live in
+ * the default package, so the default package class MapOps implements this interface and
+ * is loaded by name (see load).
+ */
+public interface IndexOps
+{
+    /*************************************************************************************
+     * Generate the keys and probes and build the map to probe.  The keys are 0 .. size-1
+     * (SEQUENTIAL) or distinct random integers inserted in random order (RANDOM, SKEWED).
+     * Probes for hits are uniform over the keys, except for SKEWED where they follow a
+     * Zipf distribution (theta = 0.99) over the keys.
+     * @param mapType    the name of the Table.MapType to benchmark
+     * @param size       the number of keys
+     * @param dist       the key distribution: SEQUENTIAL, RANDOM or SKEWED
+     * @param slots      the number of slots per LinHashMap bucket
+     * @param threshold  the LinHashMap load factor threshold
+     */
+    void setup (String mapType, int size, String dist, int slots, double threshold);
+
+    /** Build a new map holding all the keys; return its size. */
+    int putAll ();
+
+    /** Look up the next key that is in the map; return its row id. */
+    int getHit ();
+
+    /** Look up the next key that is not in the map; return -1. */
+    int getMiss ();
+
+    /** Iterate over all the entries of the map; return the number visited. */
+    int iterate ();
+
+    /** Return the number of buckets (LinHashMap), nodes (BpTreeMap) or slots (OpenHashMap)
+     *  accessed by get since the last reset, or 0 for maps that do not count. */
+    long accesses ();
+
+    /** Reset the count of accesses. */
+    void resetAccesses ();
+
+    /*************************************************************************************
+     * Load the implementation of the index operations (the default package class MapOps).
+     * @return  the index operations
+     */
+    static IndexOps load ()
+    {
+        try {
+            return (IndexOps) Class.forName ("MapOps").getDeclaredConstructor ().newInstance ();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException ("IndexOps: cannot load MapOps", ex);
+        } // try
+    } // load
+
+} // IndexOps interface
+
@@ -0,0 +1,43 @@
+/*****************************************************************************************
+ * @file  NestedLoopJoinBench.java
+ *
+ * @author   John Miller
+ */
+
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/*****************************************************************************************
+ * The NestedLoopJoinBench class measures the nested loop join, whose cost is quadratic in
+ * the table size, at the sizes where it completes (compare with RelationalBench.iJoin and
+ * hJoin).
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class NestedLoopJoinBench
+{
+    /** The number of tuples in each table
+     */
+    @Param ({ "1000", "10000" })
+    public int rows;
+
+    private RelOps ops;
+
+    @Setup (Level.Trial)
+    public void setup ()
+    {
+        ops = RelOps.load ();
+        ops.setup (rows, "TREE_MAP");
+    } // setup
+
+    @Benchmark public Object join () { return ops.join (); }
+
+} // NestedLoopJoinBench class
+
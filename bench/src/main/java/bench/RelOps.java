@@ -0,0 +1,64 @@
+/*****************************************************************************************
+ * @file  RelOps.java
+ *
+ * @author   John Miller
+ */
+
+package bench;
+
+/*****************************************************************************************
+ * The RelOps interface is the view of the relational operators taken by the benchmarks.
+ * JMH does not allow benchmarks in the default package, while Table and the tuple
+ * generator live there, so the benchmarks call the operators through this interface and
+ * the default package class TableOps implements it (see load).
+ */
+public interface RelOps
+{
+    /*************************************************************************************
+     * Generate the benchmark tables: Student (id name address status) with the given
+     * number of tuples and Transcript (studId crsCode semester grade) referencing it,
+     * with as many tuples.  Student2 holds every other Student tuple, for union and minus.
+     * @param rows  the number of tuples per table
+     * @param mapType  the name of the Table.MapType to index the tables with
+     */
+    void setup (int rows, String mapType);
+
+    /** Select the Students with a given status (predicate scan). */
+    Object select ();
+
+    /** Select a Student by key (index lookup). */
+    Object selectKey ();
+
+    /** Project Student onto name and address (duplicate elimination). */
+    Object project ();
+
+    /** Union Student and Student2. */
+    Object union ();
+
+    /** Student minus Student2. */
+    Object minus ();
+
+    /** Nested loop equi-join of Transcript and Student on studId = id. */
+    Object join ();
+
+    /** Index join of Transcript and Student on studId = id. */
+    Object iJoin ();
+
+    /** Hash join of Transcript and Student on studId = id. */
+    Object hJoin ();
+
+    /*************************************************************************************
+     * Load the implementation of the operators (the default package class TableOps).
+     * @return  the operators
+     */
+    static RelOps load ()
+    {
+        try {
+            return (RelOps) Class.forName ("TableOps").getDeclaredConstructor ().newInstance ();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException ("RelOps: cannot load TableOps", ex);
+        } // try
+    } // load
+
+} // RelOps interface
+
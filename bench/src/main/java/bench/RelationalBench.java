@@ -0,0 +1,61 @@
+/*****************************************************************************************
+ * @file  RelationalBench.java
+ *
+ * @author   John Miller
+ */
+
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/*****************************************************************************************
+ * The RelationalBench class measures the throughput of the relational operators on
+ * generated Student and Transcript tables from 1k to 1M tuples.  Run it with the gc
+ * profiler (sbt benchRel) to also report the allocation rate.  The nested loop join is
+ * quadratic, so it is measured separately at smaller sizes (see NestedLoopJoinBench).
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (value = 1, jvmArgsAppend = { "-Xms6g", "-Xmx6g" })
+public class RelationalBench
+{
+    /** The number of tuples in each table
+     */
+    @Param ({ "1000", "10000", "100000", "1000000" })
+    public int rows;
+
+    /** The type of map indexing the tables
+     */
+    @Param ({ "TREE_MAP" })
+    public String mapType;
+
+    private RelOps ops;
+
+    @Setup (Level.Trial)
+    public void setup ()
+    {
+        ops = RelOps.load ();
+        ops.setup (rows, mapType);
+    } // setup
+
+    @Benchmark public Object select ()    { return ops.select (); }
+
+    @Benchmark public Object selectKey () { return ops.selectKey (); }
+
+    @Benchmark public Object project ()   { return ops.project (); }
+
+    @Benchmark public Object union ()     { return ops.union (); }
+
+    @Benchmark public Object minus ()     { return ops.minus (); }
+
+    @Benchmark public Object iJoin ()     { return ops.iJoin (); }
+
+    @Benchmark public Object hJoin ()     { return ops.hJoin (); }
+
+} // RelationalBench class
+